@@ -0,0 +1,134 @@
+package com.example.benchmark;
+
+import com.example.inventory.config.AdaptiveKafkaProducer;
+import com.example.inventory.event.OrderEvent;
+import com.example.inventory.event.OrderEventSerializer;
+import com.example.inventory.repository.StockLedgerRepository;
+import com.example.inventory.service.InventoryService;
+import com.example.inventory.service.SingleRowStockStore;
+import com.example.inventory.service.StockAllocator;
+import com.example.inventory.trace.SagaTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 차감 판단 경로
+ *
+ * - deductStock*: 건별 모드. 조건부 UPDATE(reserve) 결과에 따라 원장 확인 → 응답 발행까지
+ *   (reserve 는 메모리 대역이 바로 1/0 을 돌려준다 → DB 를 뺀 서비스 쪽 비용)
+ * - allocate: 배치 모드에서 상품 하나에 몰린 요청을 도착 순서대로 배정하는 StockAllocator
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryDecisionBenchmark {
+
+    private InventoryService grantingService;
+    private InventoryService rejectingService;
+    private MockProducer<String, OrderEvent> producer;
+    private OrderEvent request;
+    private int sent;
+
+    @Setup
+    public void setUp() {
+        producer = Stubs.producer(new OrderEventSerializer());
+        grantingService = inventoryService(1);
+        rejectingService = inventoryService(0);
+
+        request = OrderEvent.builder()
+                .orderId(42L)
+                .productName("아이패드")
+                .quantity(1)
+                .price(500_000)
+                .eventType(OrderEvent.INVENTORY_REQUEST)
+                .build();
+    }
+
+    /** 재고 있음 → INVENTORY_SUCCESS */
+    @Benchmark
+    public void deductStockGranted() {
+        grantingService.deductStock(request);
+        drain();
+    }
+
+    /** 재고 없음 → 원장 확인 → INVENTORY_FAILED */
+    @Benchmark
+    public void deductStockRejected() {
+        rejectingService.deductStock(request);
+        drain();
+    }
+
+    @Benchmark
+    public int allocate(Allocation allocation) {
+        return StockAllocator.allocate(allocation.stock, allocation.quantities, allocation.granted);
+    }
+
+    /** 배치 모드에서 한 상품에 몰린 요청 */
+    @State(Scope.Thread)
+    public static class Allocation {
+
+        @Param({"16", "256"})
+        public int requests;
+
+        int[] quantities;
+        boolean[] granted;
+        int stock;
+
+        @Setup
+        public void setUp() {
+            quantities = new int[requests];
+            for (int i = 0; i < requests; i++) {
+                quantities[i] = 1 + ThreadLocalRandom.current().nextInt(3);
+            }
+            granted = new boolean[requests];
+            // 요청 합(평균 2 x requests)의 절반 정도만 재고 → 배정/거절이 섞이게
+            stock = requests;
+        }
+    }
+
+    private InventoryService inventoryService(int reserveResult) {
+        StockLedgerRepository ledger = Stubs.of(StockLedgerRepository.class, Map.of(
+                "reserve", args -> reserveResult,
+                "existsByOrderIdAndType", args -> false));
+        AdaptiveKafkaProducer<OrderEvent> adaptiveProducer = new AdaptiveKafkaProducer<>(null, new SimpleMeterRegistry()) {
+            @Override
+            protected KafkaTemplate<String, OrderEvent> createTemplate(Mode mode, String compression) {
+                return Stubs.kafkaTemplate(producer);
+            }
+        };
+        adaptiveProducer.init();
+        // 운영과 같이 링 버퍼 추적을 켠 상태로 잰다
+        SagaTracer sagaTracer = new SagaTracer();
+        Stubs.set(sagaTracer, "enabled", true);
+        Stubs.set(sagaTracer, "capacity", 65_536);
+        sagaTracer.init();
+        return new InventoryService(new SingleRowStockStore(null, ledger, null), ledger, adaptiveProducer,
+                Stubs.transactionTemplate(), null, new SimpleMeterRegistry(), sagaTracer);
+    }
+
+    /** MockProducer 는 보낸 기록을 계속 쌓으므로 주기적으로 비운다 */
+    private void drain() {
+        if ((++sent & 1023) == 0) {
+            producer.clear();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.benchmark;
+
+import com.example.order.event.OrderEvent;
+import com.example.order.event.OrderEventCodec;
+import com.example.order.event.OrderEventDeserializer;
+import com.example.order.event.OrderEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderEvent 직렬화 / 역직렬화
+ *
+ * 각 서비스 리스너가 실제로 거치는 경로 그대로:
+ * - 주문: Outbox 저장 시 encode, 응답 수신 시 OrderEventDeserializer
+ * - 결제 / 재고: 요청 수신 시 OrderEventDeserializer, 응답 발행 시 OrderEventSerializer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderEventCodecBenchmark {
+
+    private OrderEvent orderEvent;
+    private byte[] paymentRequestBytes;
+    private byte[] inventoryRequestBytes;
+    private byte[] responseBytes;
+
+    private final OrderEventSerializer orderSerializer = new OrderEventSerializer();
+    private final OrderEventDeserializer orderDeserializer = new OrderEventDeserializer();
+    private final com.example.payment.event.OrderEventDeserializer paymentDeserializer =
+            new com.example.payment.event.OrderEventDeserializer();
+    private final com.example.payment.event.OrderEventSerializer paymentSerializer =
+            new com.example.payment.event.OrderEventSerializer();
+    private final com.example.inventory.event.OrderEventDeserializer inventoryDeserializer =
+            new com.example.inventory.event.OrderEventDeserializer();
+    private final com.example.inventory.event.OrderEventSerializer inventorySerializer =
+            new com.example.inventory.event.OrderEventSerializer();
+
+    private com.example.payment.event.OrderEvent paymentResponse;
+    private com.example.inventory.event.OrderEvent inventoryResponse;
+
+    @Setup
+    public void setUp() {
+        orderEvent = OrderEvent.builder()
+                .eventId(OrderEventCodec.newEventId())
+                .orderId(1_234_567L)
+                .productName("맥북")
+                .quantity(1)
+                .price(500_000)
+                .eventType(OrderEvent.PAYMENT_REQUEST)
+                .build();
+        paymentRequestBytes = OrderEventCodec.encode(orderEvent);
+
+        orderEvent.setEventType(OrderEvent.INVENTORY_REQUEST);
+        inventoryRequestBytes = OrderEventCodec.encode(orderEvent);
+        orderEvent.setEventType(OrderEvent.PAYMENT_REQUEST);
+
+        paymentResponse = com.example.payment.event.OrderEvent.builder()
+                .eventId(com.example.payment.event.OrderEventCodec.newEventId())
+                .orderId(1_234_567L)
+                .productName("맥북")
+                .quantity(1)
+                .price(500_000)
+                .eventType(com.example.payment.event.OrderEvent.PAYMENT_SUCCESS)
+                .build();
+        responseBytes = paymentSerializer.serialize("order-response-topic", paymentResponse);
+
+        inventoryResponse = inventoryDeserializer.deserialize("inventory-topic", inventoryRequestBytes);
+        inventoryResponse.setEventType(com.example.inventory.event.OrderEvent.INVENTORY_SUCCESS);
+    }
+
+    /** 주문: Outbox 저장 시 페이로드 인코딩 */
+    @Benchmark
+    public byte[] orderEncodeOutbox() {
+        return OrderEventCodec.encode(orderEvent);
+    }
+
+    /** 주문: Kafka 직렬화기 경로 (다른 서비스와 비교용) */
+    @Benchmark
+    public byte[] orderSerialize() {
+        return orderSerializer.serialize("payment-topic", orderEvent);
+    }
+
+    /** 주문: order-response-topic 수신 */
+    @Benchmark
+    public OrderEvent orderDeserializeResponse() {
+        return orderDeserializer.deserialize("order-response-topic", responseBytes);
+    }
+
+    /** 결제: payment-topic 수신 */
+    @Benchmark
+    public com.example.payment.event.OrderEvent paymentDeserializeRequest() {
+        return paymentDeserializer.deserialize("payment-topic", paymentRequestBytes);
+    }
+
+    /** 결제: 응답 발행 */
+    @Benchmark
+    public byte[] paymentSerializeResponse() {
+        return paymentSerializer.serialize("order-response-topic", paymentResponse);
+    }
+
+    /** 재고: inventory-topic 수신 */
+    @Benchmark
+    public com.example.inventory.event.OrderEvent inventoryDeserializeRequest() {
+        return inventoryDeserializer.deserialize("inventory-topic", inventoryRequestBytes);
+    }
+
+    /** 재고: 응답 발행 */
+    @Benchmark
+    public byte[] inventorySerializeResponse() {
+        return inventorySerializer.serialize("order-response-topic", inventoryResponse);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.benchmark;
+
+import com.example.order.config.AdaptiveKafkaProducer;
+import com.example.order.entity.Outbox;
+import com.example.order.event.OrderEvent;
+import com.example.order.event.OrderEventCodec;
+import com.example.order.repository.OutboxRepository;
+import com.example.order.service.OrderStatusNotifier;
+import com.example.order.service.OutboxPublisher;
+import com.example.order.service.OutboxShardLeaseManager;
+import com.example.order.service.SagaMetrics;
+import com.example.order.trace.SagaTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Outbox 릴레이 한 바퀴 (publishOutboxMessages)
+ *
+ * 선점(claimPendingBatch) → 전송 → ack 대기 → markSent 를
+ * 메모리 리포지토리와 즉시 ack 하는 MockProducer 위에서 돌린다.
+ * 1 op = batchSize 건짜리 페이지 하나 + 비어있는 다음 페이지 확인
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxRelayBenchmark {
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    private OutboxPublisher publisher;
+    private MockProducer<String, byte[]> producer;
+    private boolean pageReady;
+
+    @Setup
+    public void setUp() {
+        List<Outbox> page = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long orderId = i + 1;
+            page.add(Outbox.builder()
+                    .id(orderId)
+                    .topic(i % 2 == 0 ? "payment-topic" : "inventory-topic")
+                    .messageKey(Long.toString(orderId))
+                    .shard(i % 16)
+                    .payload(OrderEventCodec.encode(OrderEvent.builder()
+                            .eventId(OrderEventCodec.newEventId())
+                            .orderId(orderId)
+                            .productName("맥북")
+                            .quantity(1)
+                            .price(500_000)
+                            .eventType(OrderEvent.PAYMENT_REQUEST)
+                            .build()))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+
+        // 한 번은 페이지를, 다음 번은 빈 목록을 돌려준다 (릴레이 루프가 끝나도록)
+        OutboxRepository outboxRepository = Stubs.of(OutboxRepository.class, Map.of(
+                "claimPendingBatch", args -> {
+                    pageReady = !pageReady;
+                    return pageReady ? page : List.of();
+                },
+                "markSent", args -> ((List<?>) args[0]).size()));
+
+        producer = Stubs.producer(new ByteArraySerializer());
+        TransactionTemplate transactionTemplate = Stubs.transactionTemplate();
+
+        OutboxShardLeaseManager leaseManager = new OutboxShardLeaseManager(null, null, transactionTemplate, event -> { });
+        Stubs.set(leaseManager, "shardCount", 16);
+        Stubs.set(leaseManager, "ownedShards", IntStream.range(0, 16).boxed().toList());
+        Stubs.set(leaseManager, "leaseValidUntil", System.nanoTime() + TimeUnit.DAYS.toNanos(1));
+
+        OrderStatusNotifier notifier = new OrderStatusNotifier();
+        SagaMetrics sagaMetrics = new SagaMetrics(new SimpleMeterRegistry(), null, null, notifier);
+
+        // adaptive=false (필드 기본값) → 항상 LATENCY 프로듀서 = MockProducer
+        AdaptiveKafkaProducer<byte[]> adaptiveProducer = new AdaptiveKafkaProducer<>(null, new SimpleMeterRegistry()) {
+            @Override
+            protected KafkaTemplate<String, byte[]> createTemplate(Mode mode, String compression) {
+                return Stubs.kafkaTemplate(producer);
+            }
+        };
+        adaptiveProducer.init();
+
+        // 운영과 같이 링 버퍼 추적을 켠 상태로 잰다
+        SagaTracer sagaTracer = new SagaTracer();
+        Stubs.set(sagaTracer, "enabled", true);
+        Stubs.set(sagaTracer, "capacity", 65_536);
+        sagaTracer.init();
+
+        publisher = new OutboxPublisher(outboxRepository, adaptiveProducer, transactionTemplate,
+                leaseManager, sagaMetrics, sagaTracer);
+        Stubs.set(publisher, "batchSize", batchSize);
+        Stubs.set(publisher, "sendTimeoutMs", 10_000L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        producer.clear();
+    }
+
+    @Benchmark
+    public int relayPage() {
+        publisher.publishOutboxMessages();
+        int sent = producer.history().size();
+        producer.clear();
+        return sent;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.benchmark;
+
+import com.example.order.entity.Order;
+import com.example.order.entity.Order.OrderStatus;
+import com.example.order.event.KeyedExecutor;
+import com.example.order.event.OrderEvent;
+import com.example.order.event.OrderSagaListener;
+import com.example.order.repository.OrderRepository;
+import com.example.order.service.OrderService;
+import com.example.order.service.OrderStatusNotifier;
+import com.example.order.service.OutboxShardLeaseManager;
+import com.example.order.service.ProcessedEventFilter;
+import com.example.order.service.SagaDeadlineTracker;
+import com.example.order.service.SagaMetrics;
+import com.example.order.service.SagaStateStore;
+import com.example.order.trace.SagaTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderSagaListener.handleResponse 디스패치
+ *
+ * 실제 OrderService / SagaStateStore / SagaDeadlineTracker(타이밍 휠) / SagaMetrics 를 쓰고
+ * DB 쓰기(write-behind flush)만 메모리 대역으로 바꿨다.
+ * → 상태 가드, 캐시 전이, 데드라인 재설정, flush, 메트릭까지 한 응답이 거치는 CPU 비용
+ *
+ * 응답에는 eventId 를 넣지 않는다. (중복 판정의 DB 경로는 여기서 재지 않음)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SagaDispatchBenchmark {
+
+    /** 여러 주문을 돌아가며 처리 (한 키만 두드리는 편향 방지) */
+    private static final int ORDERS = 1024;
+
+    private SagaStateStore sagaStateStore;
+    private SagaDeadlineTracker deadlineTracker;
+    private OrderSagaListener listener;
+    private KeyedExecutor keyedExecutor;
+
+    private Order[] orders;
+    private OrderEvent[] inventorySuccess;
+    private OrderEvent[] paymentFailed;
+    private OrderEvent[] paymentSuccessParallel;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        JdbcTemplate jdbcTemplate = new InMemoryJdbcTemplate();
+        TransactionTemplate transactionTemplate = Stubs.transactionTemplate();
+
+        deadlineTracker = new SagaDeadlineTracker(event -> { }, null, transactionTemplate, new SimpleMeterRegistry());
+        Stubs.set(deadlineTracker, "tickMs", 100L);
+        Stubs.set(deadlineTracker, "paymentTimeoutMs", 30_000L);
+        Stubs.set(deadlineTracker, "inventoryTimeoutMs", 30_000L);
+        Stubs.set(deadlineTracker, "compensationTimeoutMs", 30_000L);
+        deadlineTracker.start();
+
+        // 운영과 같이 링 버퍼 추적을 켠 상태로 잰다
+        SagaTracer sagaTracer = new SagaTracer();
+        Stubs.set(sagaTracer, "enabled", true);
+        Stubs.set(sagaTracer, "capacity", 65_536);
+        sagaTracer.init();
+
+        OrderStatusNotifier notifier = new OrderStatusNotifier();
+        OrderRepository orderRepository = Stubs.of(OrderRepository.class, Map.of());
+        ProcessedEventFilter processedEventFilter = new ProcessedEventFilter(null, jdbcTemplate, null, transactionTemplate, 1024);
+        sagaStateStore = new SagaStateStore(orderRepository, jdbcTemplate, deadlineTracker, notifier, sagaTracer,
+                processedEventFilter, transactionTemplate, ORDERS * 2);
+        SagaMetrics sagaMetrics = new SagaMetrics(new SimpleMeterRegistry(), jdbcTemplate, sagaStateStore, notifier);
+
+        OutboxShardLeaseManager leaseManager = new OutboxShardLeaseManager(null, null, transactionTemplate, event -> { });
+        Stubs.set(leaseManager, "shardCount", 16);
+        OrderService orderService = new OrderService(orderRepository, null, event -> { }, jdbcTemplate,
+                leaseManager, sagaStateStore, transactionTemplate, sagaTracer);
+
+        keyedExecutor = new KeyedExecutor("bench-saga", 1, false);
+        listener = new OrderSagaListener(orderService, keyedExecutor, sagaStateStore, processedEventFilter, sagaMetrics,
+                sagaTracer);
+
+        orders = new Order[ORDERS];
+        inventorySuccess = new OrderEvent[ORDERS];
+        paymentFailed = new OrderEvent[ORDERS];
+        paymentSuccessParallel = new OrderEvent[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            long orderId = i + 1;
+            orders[i] = Order.builder()
+                    .id(orderId)
+                    .productName("맥북")
+                    .quantity(1)
+                    .price(500_000)
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            inventorySuccess[i] = response(orderId, OrderEvent.INVENTORY_SUCCESS);
+            paymentFailed[i] = response(orderId, OrderEvent.PAYMENT_FAILED);
+            paymentSuccessParallel[i] = response(orderId, OrderEvent.PAYMENT_SUCCESS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        deadlineTracker.stop();
+        keyedExecutor.shutdown();
+    }
+
+    /** 순차 Saga 마지막 단계: INVENTORY_PENDING → COMPLETED */
+    @Benchmark
+    public void inventorySuccess() {
+        int i = nextOrder(OrderStatus.INVENTORY_PENDING);
+        listener.handleResponse(inventorySuccess[i]);
+    }
+
+    /** 결제 실패: PAYMENT_PENDING → CANCELLED */
+    @Benchmark
+    public void paymentFailed() {
+        int i = nextOrder(OrderStatus.PAYMENT_PENDING);
+        listener.handleResponse(paymentFailed[i]);
+    }
+
+    /** 병렬 Saga 첫 결과: RESERVING → PAYMENT_COMPLETED (합류 대기) */
+    @Benchmark
+    public void parallelHalfJoin() {
+        int i = nextOrder(OrderStatus.RESERVING);
+        listener.handleResponse(paymentSuccessParallel[i]);
+    }
+
+    /** 다음 주문을 원하는 상태로 되돌려 캐시에 올려둔다 */
+    private int nextOrder(OrderStatus status) {
+        int i = next;
+        next = (next + 1) & (ORDERS - 1);
+        orders[i].setStatus(status);
+        sagaStateStore.register(orders[i]);
+        return i;
+    }
+
+    private static OrderEvent response(long orderId, String eventType) {
+        return OrderEvent.builder()
+                .orderId(orderId)
+                .productName("맥북")
+                .quantity(1)
+                .price(500_000)
+                .eventType(eventType)
+                .build();
+    }
+
+    /** write-behind flush 를 받아만 주는 JdbcTemplate (조건부 UPDATE 는 항상 성공) */
+    private static final class InMemoryJdbcTemplate extends JdbcTemplate {
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            int[] counts = new int[batchArgs.size()];
+            Arrays.fill(counts, 1);
+            return new int[][]{counts};
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.benchmark;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DB / Kafka 없이 서비스 코드를 돌리기 위한 메모리 대역
+ *
+ * - 리포지토리 인터페이스는 JDK 프록시로, 지정한 메서드만 응답하고 나머지는 기본값
+ * - KafkaTemplate 은 MockProducer(즉시 ack) 위에서
+ * - 트랜잭션은 아무 일도 안 하는 트랜잭션 매니저
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /** 지정한 메서드 이름만 answers 로 응답하는 인터페이스 구현 */
+    @SuppressWarnings("unchecked")
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    /** 바로 ack 하는 MockProducer 기반 KafkaTemplate (보낸 기록은 clear 로 비운다) */
+    static <V> KafkaTemplate<String, V> kafkaTemplate(MockProducer<String, V> producer) {
+        return new KafkaTemplate<>(() -> producer);
+    }
+
+    /** KafkaTemplate 이 send 후 close 를 불러도 계속 쓸 수 있는 MockProducer */
+    static <V> MockProducer<String, V> producer(Serializer<V> valueSerializer) {
+        return new MockProducer<>(true, new StringSerializer(), valueSerializer) {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+    }
+
+    static TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        });
+    }
+
+    /** @Value 로 주입되는 필드를 직접 채운다 */
+    static void set(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("필드 없음: " + fieldName);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == void.class) {
+            return null;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.load;
+
+import com.example.inventory.InventoryServiceApplication;
+import com.example.order.OrderServiceApplication;
+import com.example.payment.PaymentServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 임베디드 Postgres + 임베디드 Kafka 위에 세 서비스를 한 JVM 으로 띄운다
+ *
+ * - Postgres 하나에 서비스별 DB(orderdb / paymentdb / inventorydb)를 따로 만든다 (서비스별 DB 분리는 그대로)
+ * - 서비스 jar 마다 application.yml 이 같은 경로에 있으므로, 각 컨텍스트에 자기 jar 의 yml 을 직접 지정한다
+ * - 토픽은 브로커 시작 시 미리 만든다 (partitions 개)
+ */
+@Slf4j
+class EmbeddedCluster implements AutoCloseable {
+
+    private static final String[] TOPICS = {"payment-topic", "inventory-topic", "order-response-topic"};
+
+    private final EmbeddedPostgres postgres;
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    final ConfigurableApplicationContext order;
+    final ConfigurableApplicationContext payment;
+    final ConfigurableApplicationContext inventory;
+
+    EmbeddedCluster(int partitions, Map<String, String> overrides) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        for (String db : List.of("orderdb", "paymentdb", "inventorydb")) {
+            admin.execute("CREATE DATABASE " + db);
+        }
+        log.info("🐘 임베디드 Postgres 시작: port={}", postgres.getPort());
+
+        kafka = new EmbeddedKafkaKraftBroker(1, partitions, TOPICS);
+        kafka.afterPropertiesSet();
+        log.info("📡 임베디드 Kafka 시작: {}", kafka.getBrokersAsString());
+
+        Map<String, String> common = new HashMap<>(overrides);
+        common.put("saga.topics.partitions", Integer.toString(partitions));
+
+        order = start(OrderServiceApplication.class, "order-service", "orderdb", common);
+        payment = start(PaymentServiceApplication.class, "payment-service", "paymentdb", common);
+        inventory = start(InventoryServiceApplication.class, "inventory-service", "inventorydb", common);
+    }
+
+    private ConfigurableApplicationContext start(Class<?> application, String service, String database,
+                                                 Map<String, String> common) throws IOException {
+        Map<String, Object> properties = new HashMap<>(common);
+        properties.put("spring.config.location", applicationYml(service));
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", database));
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "postgres");
+        properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        properties.put("server.port", "0");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.com.example." + service.replace("-service", ""), "WARN");
+
+        // 기본 프로퍼티는 application.yml 보다 우선순위가 낮아서, 명령행 인자로 넘긴다
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .main(application)
+                .run(args);
+        contexts.add(context);
+        log.info("🚀 {} 시작", service);
+        return context;
+    }
+
+    /** 클래스패스의 application.yml 중 이 서비스 jar(또는 빌드 디렉터리)에 있는 것 */
+    private static String applicationYml(String service) throws IOException {
+        for (URL url : Collections.list(EmbeddedCluster.class.getClassLoader().getResources("application.yml"))) {
+            if (url.toString().contains(service)) {
+                return url.toString();
+            }
+        }
+        throw new IllegalStateException(service + " 의 application.yml 을 클래스패스에서 찾지 못함");
+    }
+
+    @Override
+    public void close() throws IOException {
+        Collections.reverse(contexts);
+        contexts.forEach(ConfigurableApplicationContext::close);
+        kafka.destroy();
+        postgres.close();
+    }
+}
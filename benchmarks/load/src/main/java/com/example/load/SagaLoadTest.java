@@ -0,0 +1,299 @@
+package com.example.load;
+
+import com.example.inventory.service.StockStore;
+import com.example.order.entity.Order;
+import com.example.order.entity.Order.OrderStatus;
+import com.example.order.service.OrderService;
+import com.example.order.service.OrderStatusNotifier;
+import com.example.order.service.OutboxShardLeaseManager;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Saga 전체 부하 테스트
+ *
+ * 임베디드 Kafka / Postgres 위에 세 서비스를 한 JVM 으로 띄우고 (EmbeddedCluster)
+ * OrderService.createOrder 로 주문을 넣은 뒤, OrderStatusNotifier 훅으로 최종 상태(COMPLETED / CANCELLED)가
+ * DB 에 반영되는 순간까지의 시간을 잰다. (HTTP 계층은 빼고 Saga 자체의 처리량/지연만)
+ *
+ * 옵션 (--key=value)
+ *   orders=20000          측정할 주문 수
+ *   warmup=2000           측정 전 버리는 주문 수 (JIT, 파티션 할당, 커넥션 풀 예열)
+ *   mix=success:80,inventory-failure:10,payment-failure:10
+ *   max-in-flight=2000    동시에 진행 중인 Saga 상한
+ *   rate=0                초당 주문 수 (0 = in-flight 한도까지 최대한)
+ *   submitters=8          주문을 넣는 스레드 수
+ *   partitions=4          토픽 파티션 수 (saga.topics.partitions 도 같이 설정)
+ *   timeout-s=600         단계별 최대 대기 시간
+ *
+ * 서비스 설정은 시스템 프로퍼티로 넘긴다. 예) -Dsaga.mode=parallel -Dpayment.listener.batch-enabled=true
+ */
+@Slf4j
+public class SagaLoadTest {
+
+    private final OrderService orderService;
+    private final Options options;
+    private volatile Phase current;
+
+    SagaLoadTest(EmbeddedCluster cluster, Options options) {
+        this.orderService = cluster.order.getBean(OrderService.class);
+        this.options = options;
+        cluster.order.getBean(OrderStatusNotifier.class).addListener((orderId, status) -> {
+            Phase phase = current;
+            if (phase != null && (status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED)) {
+                phase.onTerminal(orderId, status);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        long mismatches;
+        try (EmbeddedCluster cluster = new EmbeddedCluster(options.partitions, options.serviceProperties())) {
+            prepareStock(cluster);
+            awaitRelay(cluster);
+
+            SagaLoadTest test = new SagaLoadTest(cluster, options);
+            log.info("🔥 워밍업: {}건", options.warmup);
+            test.run(options.warmup);
+            log.info("⏱️ 측정: {}건", options.orders);
+            Phase measured = test.run(options.orders);
+            measured.report(options);
+            mismatches = measured.mismatches.get() + measured.unfinished();
+        }
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /** 성공 시나리오가 재고 때문에 실패로 바뀌지 않도록 맥북 재고를 넉넉하게 */
+    private static void prepareStock(EmbeddedCluster cluster) {
+        cluster.inventory.getBean(StockStore.class).setStock("맥북", Integer.MAX_VALUE / 2);
+    }
+
+    /** Outbox 샤드 리스를 잡기 전에는 릴레이가 아무것도 보내지 않는다 */
+    private static void awaitRelay(EmbeddedCluster cluster) throws InterruptedException {
+        OutboxShardLeaseManager leaseManager = cluster.order.getBean(OutboxShardLeaseManager.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (leaseManager.getOwnedShards().isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Outbox 샤드 리스를 얻지 못함");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    Phase run(int count) throws InterruptedException {
+        Phase phase = new Phase(count, options.maxInFlight);
+        current = phase;
+
+        long intervalNanos = options.rate > 0 ? TimeUnit.SECONDS.toNanos(1) / options.rate : 0;
+        AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+        AtomicInteger issued = new AtomicInteger();
+
+        ExecutorService submitters = Executors.newFixedThreadPool(options.submitters);
+        for (int i = 0; i < options.submitters; i++) {
+            submitters.execute(() -> {
+                while (issued.getAndIncrement() < count) {
+                    try {
+                        phase.inFlight.acquire();
+                        long start = System.nanoTime();
+                        if (intervalNanos > 0) {
+                            // 예정 시각부터 잰다 → 시스템이 밀려도 지연이 작게 찍히지 않음 (coordinated omission 방지)
+                            start = nextSlot.getAndAdd(intervalNanos);
+                            long wait = start - System.nanoTime();
+                            if (wait > 0) {
+                                LockSupport.parkNanos(wait);
+                            }
+                        }
+                        Scenario scenario = options.pick();
+                        Order order = orderService.createOrder(scenario.productName, scenario.quantity, scenario.price);
+                        phase.onSubmitted(order.getId(), scenario, start);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        log.warn("❗ 주문 생성 실패: {}", e.getMessage());
+                        phase.failed.incrementAndGet();
+                        phase.inFlight.release();
+                        phase.done.countDown();
+                    }
+                }
+            });
+        }
+        submitters.shutdown();
+
+        if (!phase.done.await(options.timeoutSeconds, TimeUnit.SECONDS)) {
+            log.warn("⚠️ 시간 초과: {}건이 최종 상태에 도달하지 못함", phase.unfinished());
+        }
+        submitters.shutdownNow();
+        current = null;
+        return phase;
+    }
+
+    /** 워밍업 / 측정 한 단계의 기록 */
+    static final class Phase {
+
+        private record Pending(Scenario scenario, long startNanos) {
+        }
+
+        private record Terminal(OrderStatus status, long atNanos) {
+        }
+
+        final Semaphore inFlight;
+        final CountDownLatch done;
+        final AtomicLong mismatches = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        private final int count;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong lastFinishedAt = new AtomicLong();
+        /** 주문 ID → Pending(제출됨) 또는 Terminal(제출 기록보다 완료 알림이 먼저 옴) */
+        private final Map<Long, Object> slots = new ConcurrentHashMap<>();
+        private final Histogram total = new ConcurrentHistogram(3);
+        private final Map<Scenario, Histogram> byScenario = new EnumMap<>(Scenario.class);
+
+        Phase(int count, int maxInFlight) {
+            this.count = count;
+            this.inFlight = new Semaphore(maxInFlight);
+            this.done = new CountDownLatch(count);
+            for (Scenario scenario : Scenario.values()) {
+                byScenario.put(scenario, new ConcurrentHistogram(3));
+            }
+        }
+
+        void onSubmitted(Long orderId, Scenario scenario, long startNanos) {
+            Pending pending = new Pending(scenario, startNanos);
+            Object previous = slots.putIfAbsent(orderId, pending);
+            if (previous instanceof Terminal terminal && slots.remove(orderId, previous)) {
+                finish(pending, terminal);
+            }
+        }
+
+        void onTerminal(Long orderId, OrderStatus status) {
+            Terminal terminal = new Terminal(status, System.nanoTime());
+            Object previous = slots.putIfAbsent(orderId, terminal);
+            if (previous instanceof Pending pending && slots.remove(orderId, previous)) {
+                finish(pending, terminal);
+            }
+        }
+
+        private void finish(Pending pending, Terminal terminal) {
+            long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(terminal.atNanos() - pending.startNanos()));
+            total.recordValue(micros);
+            byScenario.get(pending.scenario()).recordValue(micros);
+            if (terminal.status() != pending.scenario().expected) {
+                mismatches.incrementAndGet();
+            }
+            lastFinishedAt.accumulateAndGet(terminal.atNanos(), Math::max);
+            inFlight.release();
+            done.countDown();
+        }
+
+        long unfinished() {
+            return done.getCount();
+        }
+
+        void report(Options options) {
+            double seconds = (lastFinishedAt.get() - startedAt) / 1e9;
+            long finished = total.getTotalCount();
+
+            StringBuilder out = new StringBuilder("\n===== Saga 부하 테스트 결과 =====\n");
+            out.append(String.format("주문 %d건 (완료 %d, 생성 실패 %d, 미완료 %d), 파티션 %d, in-flight 한도 %d, 목표 %s%n",
+                    count, finished, failed.get(), unfinished(), options.partitions, options.maxInFlight,
+                    options.rate > 0 ? options.rate + " orders/s" : "최대"));
+            out.append(String.format("서비스 설정: %s%n", options.serviceProperties()));
+            out.append(String.format("처리량: %.1f orders/s (%.2f초)%n", finished / seconds, seconds));
+            out.append(String.format("%-20s %8s %10s %10s %10s %10s%n", "지연(ms)", "건수", "p50", "p99", "p999", "max"));
+            row(out, "전체", total);
+            for (Map.Entry<Scenario, Histogram> entry : byScenario.entrySet()) {
+                if (entry.getValue().getTotalCount() > 0) {
+                    row(out, entry.getKey().key, entry.getValue());
+                }
+            }
+            out.append(String.format("예상과 다른 최종 상태: %d건%n", mismatches.get()));
+            log.info(out.toString());
+        }
+
+        private static void row(StringBuilder out, String name, Histogram histogram) {
+            out.append(String.format("%-20s %8d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+        }
+    }
+
+    /** 명령행 옵션 */
+    static final class Options {
+
+        int orders = 20_000;
+        int warmup = 2_000;
+        int maxInFlight = 2_000;
+        int rate;
+        int submitters = 8;
+        int partitions = 4;
+        long timeoutSeconds = 600;
+        private final List<Scenario> weighted = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            String mix = "success:80,inventory-failure:10,payment-failure:10";
+            for (String arg : args) {
+                String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+                String value = kv.length > 1 ? kv[1] : "";
+                switch (kv[0]) {
+                    case "orders" -> options.orders = Integer.parseInt(value);
+                    case "warmup" -> options.warmup = Integer.parseInt(value);
+                    case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                    case "rate" -> options.rate = Integer.parseInt(value);
+                    case "submitters" -> options.submitters = Integer.parseInt(value);
+                    case "partitions" -> options.partitions = Integer.parseInt(value);
+                    case "timeout-s" -> options.timeoutSeconds = Long.parseLong(value);
+                    case "mix" -> mix = value;
+                    default -> throw new IllegalArgumentException("알 수 없는 옵션: " + arg);
+                }
+            }
+            // 비율만큼 넣어둔 목록에서 무작위로 뽑는다 (합이 100 이 아니어도 됨)
+            for (String part : mix.split(",")) {
+                String[] kv = part.split(":");
+                Scenario scenario = Scenario.of(kv[0].trim());
+                for (int i = 0, weight = Integer.parseInt(kv[1].trim()); i < weight; i++) {
+                    options.weighted.add(scenario);
+                }
+            }
+            return options;
+        }
+
+        Scenario pick() {
+            return weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+        }
+
+        /** 시스템 프로퍼티 중 서비스 설정(saga.*, outbox.* 등)만 세 서비스에 그대로 넘긴다 */
+        Map<String, String> serviceProperties() {
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("saga.") || name.startsWith("outbox.") || name.startsWith("payment.")
+                        || name.startsWith("inventory.") || name.startsWith("spring.threads.")) {
+                    properties.put(name, System.getProperty(name));
+                }
+            }
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.load;
+
+import com.example.order.entity.Order.OrderStatus;
+
+/**
+ * README 테스트 시나리오와 같은 주문 종류
+ *
+ * 성공          : 맥북 1개 50만원 → COMPLETED
+ * 재고부족→보상 : 아이패드(재고 0) 1개 50만원 → 결제 롤백 → CANCELLED
+ * 결제실패      : 맥북 3개 50만원 (150만원 > 100만원 한도) → CANCELLED
+ */
+enum Scenario {
+
+    SUCCESS("success", "맥북", 1, 500_000, OrderStatus.COMPLETED),
+    INVENTORY_FAILURE("inventory-failure", "아이패드", 1, 500_000, OrderStatus.CANCELLED),
+    PAYMENT_FAILURE("payment-failure", "맥북", 3, 500_000, OrderStatus.CANCELLED);
+
+    final String key;
+    final String productName;
+    final int quantity;
+    final int price;
+    final OrderStatus expected;
+
+    Scenario(String key, String productName, int quantity, int price, OrderStatus expected) {
+        this.key = key;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.price = price;
+        this.expected = expected;
+    }
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 시나리오: " + key + " (success, inventory-failure, payment-failure)");
+    }
+}
@@ -0,0 +1,35 @@
+#!/bin/bash
+# ──────────────── 가상 스레드 전/후 비교 벤치마크 ────────────────
+# 주문 생성 API 에 동시 요청을 쏘고 처리량(req/s)과 지연(p50/p99)을 출력한다.
+#
+# 사용법:
+#   1) 플랫폼 스레드:  cd order-service && ./gradlew bootRun
+#      가상 스레드:    cd order-service && SPRING_THREADS_VIRTUAL_ENABLED=true ./gradlew bootRun
+#   2) ./benchmarks/virtual-threads.sh [요청 수=2000] [동시성=400]
+#   3) 두 모드의 결과를 비교 (동시성을 Tomcat 스레드 수(200)보다 크게 줘야 차이가 보인다)
+
+TOTAL=${1:-2000}
+CONCURRENCY=${2:-400}
+URL=${ORDER_URL:-http://localhost:8081/api/orders}
+RESULT=$(mktemp)
+
+echo "요청 ${TOTAL}건, 동시성 ${CONCURRENCY} → ${URL}"
+
+START=$(date +%s.%N)
+seq "$TOTAL" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" -X POST "$URL" \
+    -H "Content-Type: application/json" \
+    -d '{"productName":"맥북","quantity":1,"price":500000}' >> "$RESULT"
+END=$(date +%s.%N)
+
+OK=$(awk '$1 == 200' "$RESULT" | wc -l)
+ELAPSED=$(echo "$END - $START" | bc)
+sort -k2 -n "$RESULT" | awk -v total="$TOTAL" -v ok="$OK" -v elapsed="$ELAPSED" '
+    { latency[NR] = $2 }
+    END {
+        printf "성공: %d/%d\n", ok, total
+        printf "처리량: %.1f req/s\n", total / elapsed
+        printf "p50: %.1f ms\n", latency[int(NR * 0.50)] * 1000
+        printf "p99: %.1f ms\n", latency[int(NR * 0.99)] * 1000
+    }'
+rm -f "$RESULT"
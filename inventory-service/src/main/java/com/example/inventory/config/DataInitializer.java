@@ -1,7 +1,6 @@
 package com.example.inventory.config;
 
-import com.example.inventory.entity.Inventory;
-import com.example.inventory.repository.InventoryRepository;
+import com.example.inventory.service.StockStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -18,19 +17,13 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
 
-    private final InventoryRepository inventoryRepository;
+    private final StockStore stockStore;
 
     @Override
     public void run(String... args) {
-        inventoryRepository.save(Inventory.builder()
-                .productName("맥북")
-                .stock(5)
-                .build());
-
-        inventoryRepository.save(Inventory.builder()
-                .productName("아이패드")
-                .stock(0)  // ← 재고 없음! Saga 테스트용
-                .build());
+        // striped 모드면 버킷 수만큼 나눠서 들어간다
+        stockStore.setStock("맥북", 5);
+        stockStore.setStock("아이패드", 0);  // ← 재고 없음! Saga 테스트용
 
         log.info("📦 초기 재고 데이터 삽입 완료: 맥북(5개), 아이패드(0개)");
     }
@@ -0,0 +1,79 @@
+package com.example.inventory.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 여러 생산자 → 소비자 하나 전용 고정 크기 링 버퍼 (락 없음)
+ *
+ * 칸마다 시퀀스를 두고, 생산자는 tail 을 CAS 로 한 칸 예약 → 값을 쓰고 → 시퀀스를 pos + 1 로 올려 공개한다.
+ * 소비자는 시퀀스가 head + 1 인 칸만 읽고, 다 읽은 칸은 시퀀스를 한 바퀴 뒤(head + capacity)로 돌려 비운다.
+ * 가득 차면 offer 가 false → 호출한 쪽이 잠깐 기다렸다 다시 넣는다 (배압).
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** 소비자 스레드만 쓴다 */
+    private long head;
+    /** 모니터링용 (drain 끝날 때마다 갱신) */
+    private volatile long consumed;
+
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        buffer = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /** @return 가득 차서 못 넣었으면 false */
+    boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.getAcquire(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.setPlain(index, element);
+                    sequences.setRelease(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** 공개된 원소를 최대 max 개까지 out 에 옮긴다 (소비자 스레드 전용) */
+    int drainTo(E[] out, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) head & mask;
+            if (sequences.getAcquire(index) != head + 1) {
+                break;
+            }
+            out[count++] = buffer.getPlain(index);
+            buffer.setPlain(index, null);
+            sequences.setRelease(index, head + mask + 1);
+            head++;
+        }
+        if (count > 0) {
+            consumed = head;
+        }
+        return count;
+    }
+
+    /** 대략적인 대기 원소 수 (게이지용) */
+    int size() {
+        return (int) Math.max(0, tail.get() - consumed);
+    }
+}
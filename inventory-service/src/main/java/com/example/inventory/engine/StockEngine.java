@@ -0,0 +1,753 @@
+package com.example.inventory.engine;
+
+import com.example.inventory.entity.Inventory;
+import com.example.inventory.event.OrderEvent;
+import com.example.inventory.repository.InventoryRepository;
+import com.example.inventory.service.StockStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 단일 라이터 인메모리 재고 엔진 (inventory.stock.mode=engine)
+ *
+ * [구조]
+ * - 재고(상품 ID → 수량)와 예약(주문 ID → 상품/수량/복구 여부)은 박싱 없는 해시맵에 두고, 라이터 스레드 하나만 만진다 → 락 없음
+ * - Kafka 리스너 스레드들은 명령을 MPSC 링 버퍼에 넣고, 자기 배치가 처리될 때까지 기다렸다가 응답을 발행한다
+ * - 라이터는 결정마다 메모리 매핑 저널에 레코드를 남긴 뒤 메모리 상태를 바꾼다 → 저널에 없는 결정은 응답도 없다
+ * - 오프셋은 리스너가 돌아온 뒤(= 저널 기록 뒤) 커밋되므로, 죽었다 살아나면 못 끝낸 배치는 다시 오고
+ *   예약 맵이 주문 단위로 멱등이라 같은 주문을 두 번 차감하지 않는다
+ * - 재고 부족으로 거절한 주문도 예약 맵에 거절 표시로 남긴다 → 재전송된 요청은 다시 판단하지 않고 같은 실패로 응답
+ *   (안 그러면 INVENTORY_FAILED 로 보상이 끝난 주문이 나중에 차감돼 재고가 샌다)
+ * - 예약 맵은 마지막으로 바뀐 지 reservation-retention-hours 가 지난 주문부터 지운다 → 주문 수와 상관없이 크기 일정
+ *
+ * [스냅샷 / 복구]
+ * - snapshot-interval-ms 마다 재고 + 그 사이의 RESERVE/RELEASE 를 inventory / stock_ledger 에 한 트랜잭션으로 반영하고
+ *   저널 위치(inventory_engine_snapshot)를 올린 뒤, 스냅샷이 덮은 저널 세그먼트를 지운다
+ * - 시작 시: DB(재고 + 보존 기간 안의 원장) 로드 → 스냅샷 위치 이후 저널 재생 → 바로 스냅샷 → 그다음에 리스너 시작
+ *
+ * SQL 모드(single / striped)와 달리 이벤트마다 DB 트랜잭션이 없어서, processed_events 중복 차단도 거치지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.mode", havingValue = "engine")
+@RequiredArgsConstructor
+@Slf4j
+public class StockEngine implements StockStore {
+
+    static final byte RESERVE = 1;
+    static final byte RELEASE = 2;
+    static final byte ADJUST = 3;
+    static final byte QUERY = 4;
+
+    static final byte FAILED = 0;
+    static final byte GRANTED = 1;
+
+    /** 원장 전용 타입: 거절한 RESERVE */
+    private static final byte REJECT = 5;
+
+    private static final long RELEASED_BIT = 1L << 31;
+
+    /** 거절된 주문 표시 (상품/수량 없이 복구 비트만 → RELEASE 가 와도 할 일 없음) */
+    private static final long REJECTED = RELEASED_BIT;
+
+    private static final String UPDATE_STOCK = "UPDATE inventory SET stock = ? WHERE id = ?";
+
+    private static final String INSERT_LEDGER = """
+            INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at)
+            VALUES (?, ?, ?, ?, now())
+            ON CONFLICT (order_id, type) DO NOTHING
+            """;
+
+    private static final String SAVE_SNAPSHOT = """
+            INSERT INTO inventory_engine_snapshot (id, epoch, journal_seq, taken_at) VALUES (1, ?, ?, now())
+            ON CONFLICT (id) DO UPDATE SET epoch = EXCLUDED.epoch, journal_seq = EXCLUDED.journal_seq, taken_at = EXCLUDED.taken_at
+            """;
+
+    /**
+     * 링 버퍼로 넘기는 명령 하나
+     * result 는 라이터가 채우고 done 을 내려서 알린다 (CountDownLatch 가 happens-before 보장)
+     */
+    public static final class Command {
+        final byte type;
+        final long orderId;
+        final String productName;
+        final long productId;
+        final int quantity;
+        final OrderEvent event;
+        final CountDownLatch done;
+        long result;
+
+        Command(byte type, long orderId, String productName, long productId, int quantity,
+                OrderEvent event, CountDownLatch done) {
+            this.type = type;
+            this.orderId = orderId;
+            this.productName = productName;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.event = event;
+            this.done = done;
+        }
+
+        public OrderEvent event() {
+            return event;
+        }
+
+        public boolean isReserve() {
+            return type == RESERVE;
+        }
+
+        public boolean granted() {
+            return result == GRANTED;
+        }
+    }
+
+    /** 지난 스냅샷 이후의 원장 변경 (기본형 배열, 라이터 → 스냅샷 스레드로 통째로 넘긴다) */
+    private static final class LedgerBuffer {
+        byte[] types = new byte[1024];
+        long[] orderIds = new long[1024];
+        long[] productIds = new long[1024];
+        int[] quantities = new int[1024];
+        int size;
+        boolean stockChanged;
+
+        void add(byte type, long orderId, long productId, int quantity) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+            }
+            types[size] = type;
+            orderIds[size] = orderId;
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            size++;
+            stockChanged = true;
+        }
+
+        boolean isEmpty() {
+            return !stockChanged;
+        }
+    }
+
+    /**
+     * 예약 맵에 손댄 순서 (주문 ID, 시각 ms) — 앞에서부터 보존 기간이 지난 것을 꺼내 예약 맵에서 지운다
+     * 차감은 +주문 ID, 복구/거절(끝난 예약)은 -주문 ID 로 남긴다.
+     * 차감 뒤 복구된 주문은 기록이 둘이라, 앞쪽(차감) 기록은 건너뛰고 뒤쪽(복구) 기록이 지운다.
+     */
+    private static final class TouchLog {
+        long[] orderIds = new long[1024];
+        long[] times = new long[1024];
+        int head;
+        int size;
+
+        void add(long signedOrderId, long time) {
+            if (size == orderIds.length) {
+                long[] ids = new long[size * 2];
+                long[] ts = new long[size * 2];
+                for (int i = 0; i < size; i++) {
+                    ids[i] = orderIds[(head + i) & (orderIds.length - 1)];
+                    ts[i] = times[(head + i) & (times.length - 1)];
+                }
+                orderIds = ids;
+                times = ts;
+                head = 0;
+            }
+            int tail = (head + size) & (orderIds.length - 1);
+            orderIds[tail] = signedOrderId;
+            times[tail] = time;
+            size++;
+        }
+
+        boolean hasOlderThan(long cutoff) {
+            return size > 0 && times[head] < cutoff;
+        }
+
+        long poll() {
+            long signedOrderId = orderIds[head];
+            head = (head + 1) & (orderIds.length - 1);
+            size--;
+            return signedOrderId;
+        }
+    }
+
+    /** 스냅샷 한 번 분량 (라이터가 배치 경계에서 떠 간 복사본) */
+    private record Snapshot(long seq, long[] productIds, long[] stocks, Map<Long, String> names, LedgerBuffer ledger) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.engine.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${inventory.engine.max-batch:4096}")
+    private int maxBatch;
+
+    @Value("${inventory.engine.idle-park-us:50}")
+    private long idleParkMicros;
+
+    @Value("${inventory.engine.await-timeout-ms:30000}")
+    private long awaitTimeoutMs;
+
+    @Value("${inventory.engine.snapshot-interval-ms:5000}")
+    private long snapshotIntervalMs;
+
+    @Value("${inventory.engine.reservation-retention-hours:24}")
+    private long reservationRetentionHours;
+
+    @Value("${inventory.engine.journal.dir:./data/inventory-journal}")
+    private String journalDir;
+
+    @Value("${inventory.engine.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${inventory.engine.journal.fsync:false}")
+    private boolean fsync;
+
+    // ↓ 라이터 스레드 전용 (시작 전엔 복구 스레드, Thread.start / join 으로 넘겨준다)
+    private final Map<String, Long> catalog = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+    private final LongLongMap stock = new LongLongMap(64);
+    private final LongLongMap reservations = new LongLongMap(1 << 16);
+    private final TouchLog touched = new TouchLog();
+    private LedgerBuffer unsaved = new LedgerBuffer();
+    private StockJournal journal;
+    private long epoch;
+    private long seq;
+
+    // ↓ 스냅샷 스레드 전용: 반영에 실패한 원장 변경 (다음 스냅샷에 같이 넣는다)
+    private final List<LedgerBuffer> retry = new ArrayList<>();
+
+    private final AtomicBoolean snapshotInFlight = new AtomicBoolean();
+    private final LongAdder decisions = new LongAdder();
+    private MpscRingBuffer<Command> ring;
+    private ExecutorService snapshotExecutor;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean started;
+    private volatile long journalSeq;
+
+    /**
+     * 복구 → 라이터 시작 → 리스너 시작
+     * CommandLineRunner(DataInitializer) 가 초기 재고를 넣은 뒤라 ApplicationReadyEvent 에서 한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        long begin = System.nanoTime();
+        Path dir = Path.of(journalDir);
+        Files.createDirectories(dir);
+        journal = new StockJournal(dir, segmentSizeMb * 1024 * 1024);
+        snapshotExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("stock-engine-snapshot").factory());
+
+        long replayed = recover();
+
+        ring = new MpscRingBuffer<>(ringSize);
+        running = true;
+        writer = Thread.ofPlatform().name("stock-engine-writer").unstarted(this::runWriter);
+        writer.start();
+        started = true;
+        registerMetrics();
+
+        log.info("🧠 재고 엔진 시작: 상품 {}개, 예약 {}건, 저널 재생 {}건, epoch={}, seq={} ({}ms)",
+                catalog.size(), reservations.size(), replayed, Long.toHexString(epoch), seq,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        listenerRegistry.getListenerContainer(StockEngineListener.ID).start();
+    }
+
+    /**
+     * 종료: 리스너 컨테이너는 이미 멈춘 뒤 (Lifecycle stop 이 빈 파괴보다 먼저)
+     * 링에 남은 명령까지 처리하고 마지막 스냅샷을 남긴다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!started) {
+            return;
+        }
+        started = false;
+        running = false;
+        writer.join();
+        enqueueSnapshot(true);
+        snapshotExecutor.shutdown();
+        snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        journal.close();
+        log.info("🧠 재고 엔진 종료: seq={}", seq);
+    }
+
+    // ───────────────────────── 리스너 / StockStore 진입점 ─────────────────────────
+
+    /**
+     * 리스너 배치: 재고 요청 / 보상 이벤트를 링에 넣고 전부 저널에 기록될 때까지 기다린다
+     *
+     * @return 이벤트 순서대로의 명령 (결과 포함, 알 수 없는 이벤트 타입은 빠짐)
+     */
+    public List<Command> submitAll(List<OrderEvent> events) {
+        List<Command> commands = new ArrayList<>(events.size());
+        CountDownLatch done = new CountDownLatch(events.size());
+        for (OrderEvent event : events) {
+            byte type = switch (event.getEventType()) {
+                case OrderEvent.INVENTORY_REQUEST -> RESERVE;
+                case OrderEvent.INVENTORY_RELEASE -> RELEASE;
+                default -> 0;
+            };
+            if (type == 0) {
+                log.warn("알 수 없는 이벤트: {}", event.getEventType());
+                done.countDown();
+                continue;
+            }
+            Command command = new Command(type, event.getOrderId(), event.getProductName(), 0,
+                    event.getQuantity(), event, done);
+            commands.add(command);
+            publish(command);
+        }
+        await(done);
+        return commands;
+    }
+
+    @Override
+    public int reserve(Long orderId, String productName, int quantity) {
+        return (int) call(new Command(RESERVE, orderId, productName, 0, quantity, null, new CountDownLatch(1)));
+    }
+
+    @Override
+    public int release(Long orderId) {
+        return (int) call(new Command(RELEASE, orderId, null, 0, 0, null, new CountDownLatch(1)));
+    }
+
+    @Override
+    public int stock(String productName) {
+        if (!started) {
+            return inventoryRepository.findByProductName(productName).map(Inventory::getStock).orElse(0);
+        }
+        return (int) call(new Command(QUERY, 0, productName, 0, 0, null, new CountDownLatch(1)));
+    }
+
+    /**
+     * 시작 전(DataInitializer): DB 에 바로 쓴다 → 복구 때 읽힘
+     * 시작 후: 상품 행(ID)만 DB 에서 확보하고, 재고 변경은 링을 거쳐 저널에 ADJUST 로 남긴다
+     */
+    @Override
+    public void setStock(String productName, int stock) {
+        Inventory inventory = inventoryRepository.findByProductName(productName)
+                .orElseGet(() -> Inventory.builder().productName(productName).build());
+        if (!started || inventory.getId() == null) {
+            inventory.setStock(stock);
+            inventory = inventoryRepository.save(inventory);
+        }
+        if (started) {
+            call(new Command(ADJUST, 0, productName, inventory.getId(), stock, null, new CountDownLatch(1)));
+        }
+    }
+
+    /** 배치 진입점 호환용 — 엔진 모드에선 StockEngineListener 가 submitAll 을 직접 부른다 */
+    @Override
+    public Map<String, boolean[]> reserveAll(Map<String, List<OrderEvent>> byProduct) {
+        List<OrderEvent> events = byProduct.values().stream().flatMap(List::stream).toList();
+        List<Command> commands = submitAll(events);
+        Map<String, boolean[]> results = new LinkedHashMap<>();
+        int index = 0;
+        for (Map.Entry<String, List<OrderEvent>> entry : byProduct.entrySet()) {
+            boolean[] granted = new boolean[entry.getValue().size()];
+            for (int i = 0; i < granted.length; i++) {
+                granted[i] = commands.get(index++).granted();
+            }
+            results.put(entry.getKey(), granted);
+        }
+        return results;
+    }
+
+    private long call(Command command) {
+        publish(command);
+        await(command.done);
+        return command.result;
+    }
+
+    /** 링이 가득 차면 라이터가 비울 때까지 잠깐씩 쉬면서 다시 넣는다 (배압) */
+    private void publish(Command command) {
+        if (!started) {
+            throw new IllegalStateException("재고 엔진이 아직 복구 중이거나 종료됨");
+        }
+        while (!ring.offer(command)) {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    private void await(CountDownLatch done) {
+        try {
+            if (!done.await(awaitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("재고 엔진 응답 시간 초과 (" + awaitTimeoutMs + "ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재고 엔진 대기 중 인터럽트", e);
+        }
+    }
+
+    // ───────────────────────── 라이터 스레드 ─────────────────────────
+
+    /**
+     * 링에서 최대 max-batch 개씩 꺼내 결정 → 저널 → (fsync) → 대기 중인 리스너 깨우기
+     * 비어 있으면 잠깐 스핀하다가 idle-park-us 만큼 쉰다 (생산자가 깨우지 않으므로 시스템 콜 없음)
+     */
+    private void runWriter() {
+        Command[] batch = new Command[maxBatch];
+        long snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMs);
+        long nextSnapshot = System.nanoTime() + snapshotIntervalNanos;
+        int idle = 0;
+        while (true) {
+            int count = ring.drainTo(batch, maxBatch);
+            if (count == 0) {
+                if (!running) {
+                    break;
+                }
+                if (++idle < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(idleParkMicros));
+                }
+            } else {
+                idle = 0;
+                for (int i = 0; i < count; i++) {
+                    try {
+                        apply(batch[i]);
+                    } catch (RuntimeException e) {
+                        // 저널 기록 실패 등 → 메모리 상태는 안 바뀌었으니 실패로 응답
+                        log.error("❗ 재고 엔진 명령 처리 실패: type={}, orderId={}", batch[i].type, batch[i].orderId, e);
+                        batch[i].result = FAILED;
+                    }
+                }
+                if (fsync) {
+                    journal.force();
+                }
+                journalSeq = seq;
+                for (int i = 0; i < count; i++) {
+                    batch[i].done.countDown();
+                    batch[i] = null;
+                }
+                decisions.add(count);
+            }
+            long now = System.nanoTime();
+            if (now >= nextSnapshot) {
+                enqueueSnapshot(false);
+                pruneReservations();
+                nextSnapshot = now + snapshotIntervalNanos;
+            }
+        }
+    }
+
+    /** 결정 하나: 저널에 먼저 쓰고, 성공했을 때만 메모리 상태를 바꾼다 */
+    private void apply(Command command) {
+        switch (command.type) {
+            case RESERVE -> {
+                long existing = reservations.get(command.orderId, 0);
+                if (existing != 0) {
+                    // 재전송된 요청: 이미 결정된 주문이므로 그때 결과 그대로 (상태 변화 없음 → 저널도 없음)
+                    command.result = existing == REJECTED ? FAILED : GRANTED;
+                    return;
+                }
+                Long productId = catalog.get(command.productName);
+                long available = productId == null ? 0 : stock.get(productId, 0);
+                boolean granted = productId != null && command.quantity > 0 && available >= command.quantity;
+                byte result = granted ? GRANTED : FAILED;
+                journal.append(++seq, RESERVE, command.orderId, productId == null ? 0 : productId, command.quantity, result);
+                if (granted) {
+                    stock.put(productId, available - command.quantity);
+                    reservations.put(command.orderId, pack(productId, command.quantity, false));
+                    unsaved.add(RESERVE, command.orderId, productId, command.quantity);
+                    touched.add(command.orderId, System.currentTimeMillis());
+                } else {
+                    reservations.put(command.orderId, REJECTED);
+                    unsaved.add(REJECT, command.orderId, productId == null ? 0 : productId, command.quantity);
+                    touched.add(-command.orderId, System.currentTimeMillis());
+                }
+                command.result = result;
+            }
+            case RELEASE -> {
+                long reservation = reservations.get(command.orderId, 0);
+                if (reservation == 0 || (reservation & RELEASED_BIT) != 0) {
+                    // 미차감 또는 이미 복구 → 할 일 없음
+                    command.result = FAILED;
+                    return;
+                }
+                long productId = reservation >>> 32;
+                int quantity = (int) (reservation & Integer.MAX_VALUE);
+                journal.append(++seq, RELEASE, command.orderId, productId, quantity, GRANTED);
+                stock.put(productId, stock.get(productId, 0) + quantity);
+                reservations.put(command.orderId, reservation | RELEASED_BIT);
+                unsaved.add(RELEASE, command.orderId, productId, quantity);
+                touched.add(-command.orderId, System.currentTimeMillis());
+                command.result = GRANTED;
+            }
+            case ADJUST -> {
+                journal.append(++seq, ADJUST, 0, command.productId, command.quantity, GRANTED);
+                catalog.put(command.productName, command.productId);
+                names.put(command.productId, command.productName);
+                stock.put(command.productId, command.quantity);
+                unsaved.stockChanged = true;
+                command.result = GRANTED;
+            }
+            case QUERY -> {
+                Long productId = catalog.get(command.productName);
+                command.result = productId == null ? 0 : stock.get(productId, 0);
+            }
+            default -> command.result = FAILED;
+        }
+    }
+
+    private static long pack(long productId, int quantity, boolean released) {
+        return (productId << 32) | (released ? RELEASED_BIT : 0) | quantity;
+    }
+
+    /**
+     * 보존 기간이 지난 예약 정리 (라이터 스레드, 스냅샷 주기마다)
+     * 그때쯤이면 Saga 는 끝났고 재전송도 오지 않는다. 지운 주문은 원장에만 남는다.
+     */
+    private void pruneReservations() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(reservationRetentionHours);
+        int pruned = 0;
+        while (touched.hasOlderThan(cutoff)) {
+            long signedOrderId = touched.poll();
+            long orderId = Math.abs(signedOrderId);
+            long reservation = reservations.get(orderId, 0);
+            boolean settled = (reservation & RELEASED_BIT) != 0;
+            // 차감 기록인데 그 뒤 복구됐으면 뒤쪽 기록이 지운다
+            if (reservation != 0 && (signedOrderId < 0) == settled) {
+                reservations.remove(orderId);
+                pruned++;
+            }
+        }
+        if (pruned > 0) {
+            log.debug("🧹 재고 엔진 예약 정리: {}건 (남은 예약 {}건)", pruned, reservations.size());
+        }
+    }
+
+    // ───────────────────────── 스냅샷 / 복구 ─────────────────────────
+
+    /**
+     * 라이터 스레드에서 배치 경계에 호출: 재고를 떠 가고 원장 변경 버퍼를 통째로 넘긴 뒤, DB 반영은 스냅샷 스레드가 한다
+     * 앞 스냅샷이 아직 진행 중이면 이번 주기는 건너뛴다 (버퍼는 계속 쌓임)
+     */
+    private void enqueueSnapshot(boolean last) {
+        if (unsaved.isEmpty() || (!last && !snapshotInFlight.compareAndSet(false, true))) {
+            return;
+        }
+        Snapshot snapshot = takeSnapshot();
+        snapshotExecutor.execute(() -> {
+            try {
+                persist(snapshot);
+            } finally {
+                snapshotInFlight.set(false);
+            }
+        });
+    }
+
+    private Snapshot takeSnapshot() {
+        long[] productIds = new long[stock.size()];
+        long[] stocks = new long[stock.size()];
+        int[] index = {0};
+        stock.forEach((productId, value) -> {
+            productIds[index[0]] = productId;
+            stocks[index[0]++] = value;
+        });
+        Snapshot snapshot = new Snapshot(seq, productIds, stocks, new HashMap<>(names), unsaved);
+        unsaved = new LedgerBuffer();
+        return snapshot;
+    }
+
+    /**
+     * 재고 + 원장 + 저널 위치를 한 트랜잭션으로 반영하고, 덮인 저널 세그먼트 삭제
+     * 실패하면 원장 변경을 retry 에 남겨 다음 스냅샷에 같이 넣는다 (저널 위치도 안 올라가므로 세그먼트도 남음)
+     */
+    private boolean persist(Snapshot snapshot) {
+        retry.add(snapshot.ledger());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<Object[]> stockRows = new ArrayList<>(snapshot.productIds().length);
+            for (int i = 0; i < snapshot.productIds().length; i++) {
+                stockRows.add(new Object[]{snapshot.stocks()[i], snapshot.productIds()[i]});
+            }
+            List<Object[]> ledgerRows = new ArrayList<>();
+            for (LedgerBuffer ledger : retry) {
+                for (int i = 0; i < ledger.size; i++) {
+                    ledgerRows.add(new Object[]{ledger.orderIds[i], snapshot.names().get(ledger.productIds[i]),
+                            ledger.quantities[i], ledgerType(ledger.types[i])});
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPDATE_STOCK, stockRows);
+                // RELEASE 는 같은 스냅샷의 RESERVE 뒤에 오므로 순서대로 넣으면 된다
+                jdbcTemplate.batchUpdate(INSERT_LEDGER, ledgerRows);
+                jdbcTemplate.update(SAVE_SNAPSHOT, epoch, snapshot.seq());
+            });
+            retry.clear();
+            journal.deleteUpTo(snapshot.seq());
+            log.debug("📸 재고 엔진 스냅샷: seq={}, 원장 {}건", snapshot.seq(), ledgerRows.size());
+            return true;
+        } catch (Exception e) {
+            log.error("❗ 재고 엔진 스냅샷 실패 (다음 주기에 재시도): seq={}, {}", snapshot.seq(), e.getMessage());
+            return false;
+        } finally {
+            sample.stop(Timer.builder("inventory.engine.snapshot")
+                    .description("재고 엔진 스냅샷 DB 반영 시간")
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String ledgerType(byte type) {
+        return switch (type) {
+            case RESERVE -> "RESERVE";
+            case RELEASE -> "RELEASE";
+            default -> "REJECT";
+        };
+    }
+
+    /**
+     * DB(재고 + 보존 기간 안의 원장) 로드 → 저널 재생 → 재생한 게 있으면 바로 스냅샷 → 저널 비우고 새 세그먼트
+     * 원장은 created_at 인덱스로 reservation-retention-hours 안의 것만 읽는다 (원장이 아무리 커도 복구 시간 일정)
+     * 스냅샷 행이 없으면 DB 가 새로 만들어진 것 → 남은 저널은 다른 세대라 버리고 새 epoch 로 시작
+     *
+     * @return 재생한 저널 레코드 수
+     */
+    private long recover() throws IOException {
+        jdbcTemplate.query("SELECT id, product_name, stock FROM inventory", rs -> {
+            long id = rs.getLong(1);
+            catalog.put(rs.getString(2), id);
+            names.put(id, rs.getString(2));
+            stock.put(id, rs.getInt(3));
+        });
+        Timestamp window = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(reservationRetentionHours));
+        jdbcTemplate.query("SELECT order_id, product_name, quantity, type, created_at FROM stock_ledger "
+                + "WHERE created_at > ? ORDER BY id", rs -> {
+            long orderId = rs.getLong(1);
+            long touchedAt = rs.getTimestamp(5).getTime();
+            String type = rs.getString(4);
+            if ("REJECT".equals(type)) {
+                if (reservations.get(orderId, 0) == 0) {
+                    reservations.put(orderId, REJECTED);
+                    touched.add(-orderId, touchedAt);
+                }
+                return;
+            }
+            Long productId = catalog.get(rs.getString(2));
+            if (productId == null) {
+                return;
+            }
+            if ("RESERVE".equals(type)) {
+                reservations.put(orderId, pack(productId, rs.getInt(3), false));
+                touched.add(orderId, touchedAt);
+            } else {
+                long reservation = reservations.get(orderId, 0);
+                if (reservation != 0) {
+                    reservations.put(orderId, reservation | RELEASED_BIT);
+                    touched.add(-orderId, touchedAt);
+                }
+            }
+        }, window);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT epoch, journal_seq FROM inventory_engine_snapshot WHERE id = 1");
+        long replayed = 0;
+        if (rows.isEmpty()) {
+            epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+            seq = 0;
+            journal.deleteAll();
+            jdbcTemplate.update(SAVE_SNAPSHOT, epoch, seq);
+            log.info("🧠 재고 엔진 스냅샷 없음 → 새 epoch 로 시작 (남아 있던 저널은 폐기)");
+        } else {
+            epoch = ((Number) rows.get(0).get("epoch")).longValue();
+            long from = ((Number) rows.get(0).get("journal_seq")).longValue();
+            seq = journal.replay(epoch, from, this::replay);
+            replayed = seq - from;
+            if (replayed > 0 && !persist(takeSnapshot())) {
+                throw new IllegalStateException("저널 재생 후 스냅샷 실패 — 저널을 보존한 채 시작 중단");
+            }
+            journal.deleteAll();
+        }
+        journal.open(epoch, seq + 1);
+        journalSeq = seq;
+        return replayed;
+    }
+
+    /** 저널 레코드 하나를 메모리에 다시 적용 (결정은 이미 내려져 있으므로 결과대로 반영만) */
+    private void replay(long recordSeq, byte type, long orderId, long productId, int quantity, byte result) {
+        long now = System.currentTimeMillis();
+        if (result != GRANTED) {
+            // 거절도 기억해 둔다 (재전송된 요청이 나중에 승인되지 않도록)
+            if (type == RESERVE && reservations.get(orderId, 0) == 0) {
+                reservations.put(orderId, REJECTED);
+                unsaved.add(REJECT, orderId, productId, quantity);
+                touched.add(-orderId, now);
+            }
+            return;
+        }
+        switch (type) {
+            case RESERVE -> {
+                stock.put(productId, stock.get(productId, 0) - quantity);
+                reservations.put(orderId, pack(productId, quantity, false));
+                unsaved.add(RESERVE, orderId, productId, quantity);
+                touched.add(orderId, now);
+            }
+            case RELEASE -> {
+                stock.put(productId, stock.get(productId, 0) + quantity);
+                reservations.put(orderId, pack(productId, quantity, true));
+                unsaved.add(RELEASE, orderId, productId, quantity);
+                touched.add(-orderId, now);
+            }
+            case ADJUST -> {
+                stock.put(productId, quantity);
+                unsaved.stockChanged = true;
+            }
+            default -> log.warn("⚠️ 알 수 없는 저널 레코드: seq={}, type={}", recordSeq, type);
+        }
+    }
+
+    private void registerMetrics() {
+        FunctionCounter.builder("inventory.engine.decisions", decisions, LongAdder::sum)
+                .description("재고 엔진이 처리한 명령 수")
+                .register(meterRegistry);
+        Gauge.builder("inventory.engine.ring.depth", ring, MpscRingBuffer::size)
+                .description("링 버퍼에서 라이터를 기다리는 명령 수")
+                .register(meterRegistry);
+        Gauge.builder("inventory.engine.reservations", reservations, LongLongMap::size)
+                .description("재고 엔진이 기억하고 있는 예약/거절 주문 수 (보존 기간이 지나면 정리)")
+                .register(meterRegistry);
+        Gauge.builder("inventory.engine.journal.seq", this, engine -> engine.journalSeq)
+                .description("마지막으로 저널에 기록한 seq")
+                .register(meterRegistry);
+    }
+}
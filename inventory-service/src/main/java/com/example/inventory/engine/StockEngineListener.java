@@ -0,0 +1,91 @@
+package com.example.inventory.engine;
+
+import com.example.inventory.config.AdaptiveKafkaProducer;
+import com.example.inventory.event.OrderEvent;
+import com.example.inventory.event.OrderEventCodec;
+import com.example.inventory.trace.SagaTracer;
+import com.example.inventory.trace.SagaTracer.Step;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 엔진 모드의 재고 리스너 (inventory.stock.mode=engine)
+ *
+ * poll 한 번의 이벤트를 재고 엔진 링에 넣고, 전부 저널에 기록되면 응답을 일괄 발행한다.
+ * DB 트랜잭션을 잡지 않으므로 리스너 스레드는 엔진을 기다리는 동안만 묶인다.
+ * 엔진 복구가 끝나야 시작하므로 autoStartup = false (StockEngine 이 직접 띄움)
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.mode", havingValue = "engine")
+@RequiredArgsConstructor
+@Slf4j
+public class StockEngineListener {
+
+    public static final String ID = "inventory-engine";
+
+    private final StockEngine stockEngine;
+    private final AdaptiveKafkaProducer<OrderEvent> producer;
+    private final MeterRegistry meterRegistry;
+    private final SagaTracer sagaTracer;
+
+    @KafkaListener(id = ID, topics = "inventory-topic", groupId = "inventory-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "false")
+    public void handleInventoryBatch(List<OrderEvent> records) {
+        long batchStart = sagaTracer.start();
+        // 디코딩에 실패한 레코드는 ErrorHandlingDeserializer 가 null 로 넘겨준다
+        List<OrderEvent> events = records.stream().filter(Objects::nonNull).toList();
+        log.debug("📩 재고 이벤트 배치 수신 (엔진): {}건", events.size());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<StockEngine.Command> commands = stockEngine.submitAll(events);
+        sample.stop(Timer.builder("saga.handler")
+                .description("Saga 이벤트 처리 시간")
+                .tag("type", "batch")
+                .tag("mode", "engine")
+                .register(meterRegistry));
+
+        // 저널 기록 뒤 응답 일괄 발행 (보상 이벤트는 응답 없음)
+        producer.beginBatch(commands.size());
+        for (StockEngine.Command command : commands) {
+            if (command.isReserve()) {
+                send(toResponse(command.event(),
+                        command.granted() ? OrderEvent.INVENTORY_SUCCESS : OrderEvent.INVENTORY_FAILED));
+            }
+        }
+        producer.flush();
+        for (OrderEvent event : events) {
+            sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), batchStart);
+        }
+    }
+
+    private OrderEvent toResponse(OrderEvent event, String eventType) {
+        return OrderEvent.builder()
+                .orderId(event.getOrderId())
+                .productName(event.getProductName())
+                .quantity(event.getQuantity())
+                .price(event.getPrice())
+                .eventType(eventType)
+                .eventId(OrderEventCodec.newEventId())
+                .build();
+    }
+
+    private void send(OrderEvent response) {
+        try {
+            long start = sagaTracer.start();
+            producer.send("order-response-topic", response.getOrderId().toString(), response);
+            sagaTracer.record(response.getOrderId(), Step.PUBLISH, response.getEventType(), start);
+        } catch (Exception e) {
+            log.error("❗ 응답 발행 실패: {}", e.getMessage());
+        }
+    }
+}
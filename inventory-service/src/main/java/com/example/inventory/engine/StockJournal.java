@@ -0,0 +1,180 @@
+package com.example.inventory.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Stream;
+
+/**
+ * 재고 엔진의 결정 저널 (메모리 매핑 파일, append-only)
+ *
+ * 세그먼트 파일(journal-{시작 seq}.log)을 통째로 mmap 해 두고 고정 길이 레코드를 이어 붙인다.
+ * 쓰기는 메모리 쓰기일 뿐이라 시스템 콜이 없고, 프로세스가 죽어도 페이지 캐시에 남은 내용은 디스크로 간다.
+ * 전원 장애까지 막으려면 force() (inventory.engine.journal.fsync=true) — 대신 배치마다 msync 비용.
+ *
+ * 세그먼트 헤더(64B): magic, version, epoch, 시작 seq
+ * 레코드(32B): seq, orderId, productId, quantity, type, result — seq 를 마지막에 써서 seq != 0 이면 온전한 레코드
+ *
+ * 라이터 스레드 하나만 append 하고, 스냅샷 스레드는 닫힌 세그먼트만 지운다.
+ */
+@Slf4j
+final class StockJournal implements Closeable {
+
+    interface RecordHandler {
+        void apply(long seq, byte type, long orderId, long productId, int quantity, byte result);
+    }
+
+    private static final int MAGIC = 0x534A524E; // "SJRN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+
+    /** 다 차서 닫힌 세그먼트 (이 안의 레코드가 전부 스냅샷에 들어가면 지운다) */
+    private record Segment(Path path, long lastSeq) {
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final ConcurrentLinkedDeque<Segment> closed = new ConcurrentLinkedDeque<>();
+
+    private long epoch;
+    private Path currentPath;
+    private MappedByteBuffer current;
+    private long lastSeq;
+
+    StockJournal(Path dir, int segmentSize) {
+        this.dir = dir;
+        // 헤더 + 레코드 정수 개
+        this.segmentSize = HEADER_SIZE + Math.max(1, (segmentSize - HEADER_SIZE) / RECORD_SIZE) * RECORD_SIZE;
+    }
+
+    /**
+     * epoch 가 같은 세그먼트의 레코드 중 afterSeq 보다 뒤의 것을 seq 순서로 재생
+     *
+     * @return 마지막으로 읽은 seq (없으면 afterSeq)
+     */
+    long replay(long epoch, long afterSeq, RecordHandler handler) throws IOException {
+        long last = afterSeq;
+        for (Path path : segments()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getLong(8) != epoch) {
+                    log.warn("⚠️ 다른 epoch 의 저널 세그먼트 무시: {}", path.getFileName());
+                    continue;
+                }
+                for (int offset = HEADER_SIZE; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE) {
+                    long seq = buffer.getLong(offset);
+                    if (seq == 0) {
+                        break;
+                    }
+                    if (seq <= last) {
+                        continue;
+                    }
+                    handler.apply(seq, buffer.get(offset + 28), buffer.getLong(offset + 8),
+                            buffer.getLong(offset + 16), buffer.getInt(offset + 24), buffer.get(offset + 29));
+                    last = seq;
+                }
+            }
+        }
+        return last;
+    }
+
+    /** 디렉터리의 세그먼트를 모두 지운다 (스냅샷이 전부 덮은 뒤 / 새 epoch 시작) */
+    void deleteAll() throws IOException {
+        for (Path path : segments()) {
+            Files.deleteIfExists(path);
+        }
+        closed.clear();
+    }
+
+    /** 새 세그먼트를 열고 nextSeq 부터 기록 */
+    void open(long epoch, long nextSeq) {
+        this.epoch = epoch;
+        this.lastSeq = nextSeq - 1;
+        roll(nextSeq);
+    }
+
+    /** 레코드 하나 추가 (세그먼트가 차면 다음 세그먼트로) */
+    void append(long seq, byte type, long orderId, long productId, int quantity, byte result) {
+        if (current.remaining() < RECORD_SIZE) {
+            closed.add(new Segment(currentPath, lastSeq));
+            roll(seq);
+        }
+        int offset = current.position();
+        current.putLong(offset + 8, orderId);
+        current.putLong(offset + 16, productId);
+        current.putInt(offset + 24, quantity);
+        current.put(offset + 28, type);
+        current.put(offset + 29, result);
+        current.putLong(offset, seq);
+        current.position(offset + RECORD_SIZE);
+        lastSeq = seq;
+    }
+
+    /** 지금까지 쓴 내용을 디스크까지 내림 (msync) */
+    void force() {
+        current.force();
+    }
+
+    /** 레코드가 전부 upToSeq 이하인 닫힌 세그먼트 삭제 */
+    void deleteUpTo(long upToSeq) {
+        Segment segment;
+        while ((segment = closed.peekFirst()) != null && segment.lastSeq() <= upToSeq) {
+            closed.pollFirst();
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.warn("⚠️ 저널 세그먼트 삭제 실패: {}", segment.path(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (current != null) {
+            current.force();
+            current = null;
+        }
+    }
+
+    private void roll(long startSeq) {
+        Path path = dir.resolve(String.format("journal-%020d.log", startSeq));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, epoch);
+            buffer.putLong(16, startSeq);
+            buffer.position(HEADER_SIZE);
+            if (current != null) {
+                current.force();
+            }
+            current = buffer;
+            currentPath = path;
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 세그먼트 생성 실패: " + path, e);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> paths = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().matches("journal-\\d+\\.log"))
+                    .toList());
+            paths.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            return paths;
+        }
+    }
+}
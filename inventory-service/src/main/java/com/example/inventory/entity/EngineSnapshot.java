@@ -0,0 +1,29 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 엔진(inventory.stock.mode=engine)의 마지막 스냅샷 위치 (행 하나, id = 1)
+ *
+ * 스냅샷은 inventory 재고 + stock_ledger 원장 + 이 행을 한 트랜잭션으로 쓴다.
+ * 재시작하면 DB 상태에서 출발해 저널의 journal_seq 이후 레코드만 다시 적용한다.
+ * epoch 는 저널 파일의 세대 — DB 가 새로 만들어졌으면(행 없음) 남아 있던 저널은 버린다.
+ */
+@Entity
+@Table(name = "inventory_engine_snapshot")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class EngineSnapshot {
+
+    @Id
+    private Integer id;
+
+    private long epoch;
+
+    private long journalSeq;
+
+    private LocalDateTime takenAt;
+}
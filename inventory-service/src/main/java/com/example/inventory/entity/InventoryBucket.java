@@ -0,0 +1,29 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * striped 모드의 재고 버킷 (inventory.stock.mode=striped)
+ *
+ * 상품 하나의 재고를 N 개 행으로 나눠 둔다. 주문은 주문 ID 해시로 고른 버킷 하나만 잠그므로
+ * 인기 상품에 주문이 몰려도 행 락 경합이 버킷 수만큼 나뉜다. 상품 재고 = 버킷 재고의 합.
+ */
+@Entity
+@Table(name = "inventory_bucket",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_name", "bucket"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class InventoryBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String productName;
+
+    private int bucket;
+
+    private int stock;
+}
@@ -0,0 +1,23 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 처리 완료한 이벤트 ID (중복 수신 방지)
+ * 행 하나 = uuid 16바이트 + 시각 → 보존 기간 동안만 남긴다.
+ */
+@Entity
+@Table(name = "processed_events")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ProcessedEvent {
+
+    @Id
+    private UUID eventId;
+
+    private LocalDateTime processedAt;
+}
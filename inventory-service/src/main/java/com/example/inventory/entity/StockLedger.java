@@ -0,0 +1,45 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 예약 원장 (append-only)
+ *
+ * 주문마다 RESERVE 한 줄, 보상 시 RELEASE 한 줄이 추가될 뿐 수정/삭제는 없다.
+ * 엔진 모드는 재고 부족으로 거절한 주문도 REJECT 한 줄로 남긴다. (재전송된 요청을 나중에 승인하지 않도록)
+ * (order_id, type) 유니크 → 같은 주문을 두 번 차감하거나 두 번 복구할 수 없음
+ * created_at 인덱스 → 엔진 복구 시 보존 기간 안의 원장만 읽는다
+ */
+@Entity
+@Table(name = "stock_ledger",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "type"}),
+        indexes = @Index(name = "stock_ledger_created_at_idx", columnList = "created_at"))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StockLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+    private String productName;
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    private EntryType type;
+
+    private LocalDateTime createdAt;
+
+    /** striped 모드: 이 주문이 차감한(= 복구 때 되돌릴) 버킷, 단일 행 모드에선 null */
+    private Integer bucket;
+
+    public enum EntryType {
+        RESERVE,
+        RELEASE,
+        REJECT
+    }
+}
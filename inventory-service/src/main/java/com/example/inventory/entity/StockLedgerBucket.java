@@ -0,0 +1,30 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * striped 모드에서 한 주문이 여러 버킷에서 나눠 차감한 내역 (inventory.stock.mode=striped)
+ *
+ * 원장의 RESERVE 는 주문당 한 줄이라 버킷 하나만 적을 수 있다. 느린 경로 / 배치 경로가 여러 버킷에서 덜어냈으면
+ * 버킷별 수량을 여기에 남겨 두고, 복구 때 덜어낸 버킷마다 그만큼 되돌린다 → 버킷 사이 재고가 한쪽으로 쏠리지 않음
+ * (버킷 하나에서만 차감한 주문은 행이 없고 원장의 bucket 으로 복구한다)
+ */
+@Entity
+@Table(name = "stock_ledger_bucket",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "bucket"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StockLedgerBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+
+    private int bucket;
+
+    private int quantity;
+}
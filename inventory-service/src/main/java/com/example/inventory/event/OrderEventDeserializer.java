@@ -0,0 +1,23 @@
+package com.example.inventory.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka 값 역직렬화: OrderEventCodec 바이너리 → OrderEvent
+ * 깨진 메시지는 ErrorHandlingDeserializer 가 받아서 리스너를 멈추지 않게 한다.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return OrderEventCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("OrderEvent 디코딩 실패: topic=" + topic, e);
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package com.example.inventory.repository;
 
 import com.example.inventory.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductName(String productName);
+
+    /** 배치 처리용: 여러 상품 행을 한 번에 잠금 (이름순 → 데드락 방지) */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productName IN :productNames ORDER BY i.productName")
+    List<Inventory> findAllForUpdate(@Param("productNames") Collection<String> productNames);
 }
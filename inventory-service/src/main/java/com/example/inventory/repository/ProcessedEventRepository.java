@@ -0,0 +1,8 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.UUID;
+
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, UUID> {
+}
@@ -0,0 +1,67 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.StockLedger;
+import com.example.inventory.entity.StockLedger.EntryType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StockLedgerRepository extends JpaRepository<StockLedger, Long> {
+
+    /**
+     * 조건부 재고 차감 + RESERVE 기록을 SQL 한 문장으로 (DB 왕복 1번)
+     *
+     * stock >= quantity 일 때만 차감되고, 같은 주문의 RESERVE 가 이미 있으면 아무것도 안 한다.
+     * 행 락은 UPDATE 순간에만 잡히므로 동시 주문이 몰려도 초과 판매가 없다.
+     *
+     * @return 1 = 차감 성공, 0 = 재고 부족 / 상품 없음 / 이미 차감된 주문
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH deducted AS (
+                UPDATE inventory SET stock = stock - :quantity
+                WHERE product_name = :productName
+                  AND stock >= :quantity
+                  AND NOT EXISTS (SELECT 1 FROM stock_ledger WHERE order_id = :orderId AND type = 'RESERVE')
+                RETURNING product_name
+            )
+            INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at)
+            SELECT :orderId, product_name, :quantity, 'RESERVE', now() FROM deducted
+            """, nativeQuery = true)
+    int reserve(@Param("orderId") Long orderId,
+                @Param("productName") String productName,
+                @Param("quantity") int quantity);
+
+    /**
+     * 보상: 주문의 RESERVE 만큼 재고 복구 + RELEASE 기록 (DB 왕복 1번)
+     * RESERVE 가 없거나 이미 RELEASE 됐으면 아무것도 안 한다.
+     *
+     * @return 복구된 재고 행 수 (0 또는 1)
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH released AS (
+                INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at)
+                SELECT order_id, product_name, quantity, 'RELEASE', now() FROM stock_ledger
+                WHERE order_id = :orderId AND type = 'RESERVE'
+                ON CONFLICT (order_id, type) DO NOTHING
+                RETURNING product_name, quantity
+            )
+            UPDATE inventory i SET stock = i.stock + r.quantity
+            FROM released r WHERE i.product_name = r.product_name
+            """, nativeQuery = true)
+    int release(@Param("orderId") Long orderId);
+
+    boolean existsByOrderIdAndType(Long orderId, EntryType type);
+
+    /** 배치 중 이미 원장에 기록된 주문 찾기 (재전송 판별) */
+    @Query("SELECT l.orderId FROM StockLedger l WHERE l.orderId IN :orderIds AND l.type = :type")
+    List<Long> findOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("type") EntryType type);
+}
@@ -1,37 +1,107 @@
 package com.example.inventory.service;
 
-import com.example.inventory.entity.Inventory;
+import com.example.inventory.config.AdaptiveKafkaProducer;
+import com.example.inventory.entity.StockLedger.EntryType;
 import com.example.inventory.event.OrderEvent;
-import com.example.inventory.repository.InventoryRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.inventory.event.OrderEventCodec;
+import com.example.inventory.repository.StockLedgerRepository;
+import com.example.inventory.trace.SagaTracer;
+import com.example.inventory.trace.SagaTracer.Step;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryService {
 
-    private final InventoryRepository inventoryRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final StockStore stockStore;
+    private final StockLedgerRepository stockLedgerRepository;
+    private final AdaptiveKafkaProducer<OrderEvent> producer;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedEventFilter processedEventFilter;
+    private final MeterRegistry meterRegistry;
+    private final SagaTracer sagaTracer;
 
-    @KafkaListener(topics = "inventory-topic", groupId = "inventory-group")
-    public void handleInventoryEvent(String message) {
+    /** 이벤트 타입별 처리 시간 타이머 (태그 조합마다 한 번만 생성) */
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+
+    /**
+     * 배치 모드(inventory.listener.batch-enabled=true)에서는 아래 handleInventoryBatch 가 대신 뜬다
+     * 엔진 모드(inventory.stock.mode=engine)에서는 둘 다 안 뜨고 StockEngineListener 가 받는다
+     *
+     * 처리에 실패하면 예외를 그대로 던져서 오프셋을 커밋하지 않는다 → 컨테이너 에러 핸들러가 다시 전달한다.
+     * (처리 기록은 재고 변경과 같은 트랜잭션이라 함께 롤백 → 다시 와도 중복으로 걸러지지 않음)
+     */
+    @KafkaListener(topics = "inventory-topic", groupId = "inventory-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            autoStartup = "#{!${inventory.listener.batch-enabled:false} && '${inventory.stock.mode:single}' != 'engine'}")
+    public void handleInventoryEvent(OrderEvent event) {
         try {
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            log.info("📩 재고 이벤트 수신: orderId={}, product={}, qty={}",
-                    event.getOrderId(), event.getProductName(), event.getQuantity());
+            log.debug("📩 재고 이벤트 수신: type={}, orderId={}, product={}, qty={}",
+                    event.getEventType(), event.getOrderId(), event.getProductName(), event.getQuantity());
 
-            deductStock(event);
-        } catch (Exception e) {
-            log.error("❗ 재고 이벤트 처리 실패: {}", e.getMessage(), e);
+            long start = sagaTracer.start();
+            handlerTimer(event.getEventType(), "single").record(() -> handleOnce(event));
+            sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), start);
+        } catch (RuntimeException e) {
+            log.error("❗ 재고 이벤트 처리 실패 → 재전송 대기: type={}, orderId={}, {}",
+                    event.getEventType(), event.getOrderId(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 중복 이벤트 차단 후 처리
+     * 처리 기록(INSERT)과 재고 변경이 같은 트랜잭션이라, 둘 중 하나만 남는 일은 없다.
+     */
+    private void handleOnce(OrderEvent event) {
+        if (processedEventFilter.isDuplicate(event.getEventId())) {
+            log.debug("⏭️ 중복 이벤트 무시: eventId={}, orderId={}", event.getEventId(), event.getOrderId());
+            return;
+        }
+        long start = sagaTracer.start();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!processedEventFilter.markProcessed(event.getEventId())) {
+                log.debug("⏭️ 중복 이벤트 무시: eventId={}, orderId={}", event.getEventId(), event.getOrderId());
+                return;
+            }
+            handle(event);
+        });
+        sagaTracer.record(event.getOrderId(), Step.DB_WRITE, event.getEventType(), start);
+    }
+
+    private void handle(OrderEvent event) {
+        switch (event.getEventType()) {
+            case OrderEvent.INVENTORY_REQUEST:
+                deductStock(event);
+                break;
+
+            case OrderEvent.INVENTORY_RELEASE:
+                // ★ 보상 트랜잭션: 차감했던 재고 되돌리기
+                releaseStock(event);
+                break;
+
+            default:
+                log.warn("알 수 없는 이벤트: {}", event.getEventType());
         }
     }
 
@@ -40,47 +110,211 @@ public class InventoryService {
      *
      * 재고 충분 → 차감 후 SUCCESS 응답
      * 재고 부족 → FAILED 응답 → Order Service가 보상 트랜잭션 시작
+     *
+     * 조회 → 비교 → 저장 대신 조건부 UPDATE 한 번으로 처리 (DB 왕복 1번, 락 없이도 초과 판매 없음)
+     * striped 모드면 주문 ID 로 고른 버킷 행만 잠근다 (StockStore)
      */
     @Transactional
     public void deductStock(OrderEvent event) {
-        Optional<Inventory> optInventory = inventoryRepository.findByProductName(event.getProductName());
+        int reserved = stockStore.reserve(event.getOrderId(), event.getProductName(), event.getQuantity());
+
+        if (reserved == 1) {
+            log.debug("✅ 재고 차감 성공: product={}, 수량={}", event.getProductName(), event.getQuantity());
+            sendResponse(event, OrderEvent.INVENTORY_SUCCESS);
+            return;
+        }
 
-        if (optInventory.isEmpty()) {
-            log.info("❌ 상품 없음: {}", event.getProductName());
-            sendResponse(event, OrderEvent.INVENTORY_FAILED);
+        // 실패 경로에서만 원장 확인: 재전송된 이벤트면 이미 차감된 것이므로 성공으로 응답
+        if (stockLedgerRepository.existsByOrderIdAndType(event.getOrderId(), EntryType.RESERVE)) {
+            log.debug("↩️ 이미 차감된 주문: orderId={}", event.getOrderId());
+            sendResponse(event, OrderEvent.INVENTORY_SUCCESS);
             return;
         }
 
-        Inventory inventory = optInventory.get();
+        // ★ 재고 부족(또는 상품 없음)! → 이 응답이 Saga 보상 트랜잭션을 트리거함
+        log.debug("❌ 재고 부족: product={}, 요청={}", event.getProductName(), event.getQuantity());
+        sendResponse(event, OrderEvent.INVENTORY_FAILED);
+    }
 
-        if (inventory.getStock() < event.getQuantity()) {
-            // ★ 재고 부족! → 이 응답이 Saga 보상 트랜잭션을 트리거함
-            log.info("❌ 재고 부족: product={}, 현재={}, 요청={}",
-                    event.getProductName(), inventory.getStock(), event.getQuantity());
-            sendResponse(event, OrderEvent.INVENTORY_FAILED);
+    /**
+     * ★ 보상 트랜잭션: 예약 원장의 RESERVE 만큼 재고 복구
+     * 여러 번 와도 한 번만 복구된다.
+     */
+    @Transactional
+    public void releaseStock(OrderEvent event) {
+        int released = stockStore.release(event.getOrderId());
+        if (released == 1) {
+            log.debug("🔄 재고 복구 완료: orderId={}, product={}", event.getOrderId(), event.getProductName());
+        } else {
+            log.debug("↩️ 복구할 예약 없음 (미차감 또는 이미 복구): orderId={}", event.getOrderId());
+        }
+    }
+
+    /**
+     * 배치 모드: poll 한 번의 이벤트를 한 트랜잭션으로 처리
+     *
+     * 플래시 세일처럼 몇 안 되는 상품에 주문이 몰리면
+     * 상품별로 묶어서 재고 UPDATE 를 상품당 1번만 하고,
+     * 응답도 모아서 프로듀서 배치 한 번으로 보낸다.
+     *
+     * 배치 트랜잭션이 실패하면 한 건씩 다시 처리하고, 그래도 실패한 레코드에서 BatchListenerFailedException
+     * → 에러 핸들러가 그 앞까지만 커밋하고 그 레코드부터 다시 전달한다.
+     */
+    @KafkaListener(topics = "inventory-topic", groupId = "inventory-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{${inventory.listener.batch-enabled:false} && '${inventory.stock.mode:single}' != 'engine'}")
+    public void handleInventoryBatch(List<OrderEvent> records) {
+        long batchStart = sagaTracer.start();
+        // 디코딩에 실패한 레코드는 ErrorHandlingDeserializer 가 null 로 넘겨준다
+        List<OrderEvent> events = records.stream()
+                .filter(Objects::nonNull)
+                .filter(distinctEventId())
+                .filter(event -> !processedEventFilter.isDuplicate(event.getEventId()))
+                .toList();
+        log.debug("📩 재고 이벤트 배치 수신: {}건 (중복 제외 {}건)", events.size(), records.size() - events.size());
+
+        List<OrderEvent> responses;
+        long txStart = sagaTracer.start();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            responses = transactionTemplate.execute(status -> applyBatch(events));
+        } catch (Exception e) {
+            // 배치가 통째로 실패하면 한 건씩 다시 처리해서 문제 이벤트만 격리
+            log.error("❗ 재고 배치 처리 실패, 건별 처리로 전환: {}", e.getMessage(), e);
+            for (OrderEvent event : events) {
+                try {
+                    handleOnce(event);
+                } catch (RuntimeException ex) {
+                    log.error("❗ 재고 이벤트 처리 실패 → 재전송 대기: type={}, orderId={}, {}",
+                            event.getEventType(), event.getOrderId(), ex.getMessage());
+                    throw new BatchListenerFailedException("재고 이벤트 처리 실패: orderId=" + event.getOrderId(),
+                            ex, indexOf(records, event));
+                }
+            }
             return;
+        } finally {
+            sample.stop(handlerTimer("batch", "batch"));
+        }
+
+        for (OrderEvent event : events) {
+            sagaTracer.record(event.getOrderId(), Step.DB_WRITE, event.getEventType(), txStart);
+        }
+
+        // 커밋 후 응답 일괄 발행 (많으면 BULK 프로듀서로)
+        producer.beginBatch(responses.size());
+        for (OrderEvent response : responses) {
+            send(response);
+        }
+        producer.flush();
+        for (OrderEvent event : events) {
+            sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), batchStart);
+        }
+    }
+
+    /**
+     * 배치 적용 (한 트랜잭션)
+     * 1. 재전송된 주문(원장에 RESERVE 있음) → 바로 SUCCESS
+     * 2. 나머지 요청은 상품별로 묶어 도착 순서대로 배정 → 상품당 UPDATE 1번 (striped 모드는 바뀐 버킷만)
+     * 3. RESERVE 원장은 JDBC 배치 INSERT
+     * 4. 보상(RELEASE) 이벤트는 예약 뒤에 건별 처리
+     */
+    private List<OrderEvent> applyBatch(List<OrderEvent> received) {
+        // 처리 기록을 먼저 남기고, 다른 컨슈머가 먼저 기록한 이벤트는 뺀다
+        Set<UUID> fresh = processedEventFilter.markProcessed(
+                received.stream().map(OrderEvent::getEventId).toList());
+        List<OrderEvent> events = received.stream()
+                .filter(event -> event.getEventId() == null || fresh.contains(event.getEventId()))
+                .toList();
+
+        Map<Long, OrderEvent> requests = new LinkedHashMap<>();
+        List<OrderEvent> releases = new ArrayList<>();
+        for (OrderEvent event : events) {
+            if (OrderEvent.INVENTORY_REQUEST.equals(event.getEventType())) {
+                requests.putIfAbsent(event.getOrderId(), event);
+            } else if (OrderEvent.INVENTORY_RELEASE.equals(event.getEventType())) {
+                releases.add(event);
+            } else {
+                log.warn("알 수 없는 이벤트: {}", event.getEventType());
+            }
+        }
+
+        List<OrderEvent> responses = new ArrayList<>(requests.size());
+        if (!requests.isEmpty()) {
+            Set<Long> alreadyReserved = new HashSet<>(
+                    stockLedgerRepository.findOrderIds(requests.keySet(), EntryType.RESERVE));
+
+            Map<String, List<OrderEvent>> byProduct = new LinkedHashMap<>();
+            for (OrderEvent event : requests.values()) {
+                if (alreadyReserved.contains(event.getOrderId())) {
+                    responses.add(toResponse(event, OrderEvent.INVENTORY_SUCCESS));
+                } else {
+                    byProduct.computeIfAbsent(event.getProductName(), k -> new ArrayList<>()).add(event);
+                }
+            }
+
+            // 상품별 배정 + RESERVE 원장 기록은 저장 방식(단일 행 / 버킷)에 맡긴다
+            Map<String, boolean[]> results = stockStore.reserveAll(byProduct);
+            for (Map.Entry<String, List<OrderEvent>> entry : byProduct.entrySet()) {
+                boolean[] granted = results.get(entry.getKey());
+                for (int i = 0; i < granted.length; i++) {
+                    OrderEvent event = entry.getValue().get(i);
+                    responses.add(toResponse(event, granted[i] ? OrderEvent.INVENTORY_SUCCESS : OrderEvent.INVENTORY_FAILED));
+                }
+            }
+        }
+
+        for (OrderEvent release : releases) {
+            stockStore.release(release.getOrderId());
         }
+        return responses;
+    }
 
-        // 재고 차감 성공
-        inventory.setStock(inventory.getStock() - event.getQuantity());
-        inventoryRepository.save(inventory);
-        log.info("✅ 재고 차감 성공: product={}, 남은재고={}",
-                event.getProductName(), inventory.getStock());
-        sendResponse(event, OrderEvent.INVENTORY_SUCCESS);
+    /** saga.handler{type, mode}: 건별 모드는 이벤트 타입별, 배치 모드는 poll 한 번(한 트랜잭션) 단위 */
+    private Timer handlerTimer(String type, String mode) {
+        return handlerTimers.computeIfAbsent(type + ':' + mode, key -> Timer.builder("saga.handler")
+                .description("Saga 이벤트 처리 시간")
+                .tag("type", type)
+                .tag("mode", mode)
+                .register(meterRegistry));
+    }
+
+    /** 배치 안에서 레코드의 위치 (equals 가 아니라 같은 객체로 찾는다 → 내용이 같은 앞 레코드와 헷갈리지 않음) */
+    private static int indexOf(List<OrderEvent> records, OrderEvent event) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i) == event) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("배치에 없는 레코드: orderId=" + event.getOrderId());
+    }
+
+    /** 같은 poll 안에 같은 eventId 가 두 번 들어온 경우 첫 번째만 남긴다 */
+    private static Predicate<OrderEvent> distinctEventId() {
+        Set<UUID> seen = new HashSet<>();
+        return event -> event.getEventId() == null || seen.add(event.getEventId());
     }
 
     private void sendResponse(OrderEvent event, String eventType) {
+        send(toResponse(event, eventType));
+    }
+
+    private OrderEvent toResponse(OrderEvent event, String eventType) {
+        return OrderEvent.builder()
+                .orderId(event.getOrderId())
+                .productName(event.getProductName())
+                .quantity(event.getQuantity())
+                .price(event.getPrice())
+                .eventType(eventType)
+                .eventId(OrderEventCodec.newEventId())
+                .build();
+    }
+
+    private void send(OrderEvent response) {
         try {
-            OrderEvent response = OrderEvent.builder()
-                    .orderId(event.getOrderId())
-                    .productName(event.getProductName())
-                    .quantity(event.getQuantity())
-                    .price(event.getPrice())
-                    .eventType(eventType)
-                    .build();
-            kafkaTemplate.send("order-response-topic",
-                    event.getOrderId().toString(),
-                    objectMapper.writeValueAsString(response));
+            long start = sagaTracer.start();
+            producer.send("order-response-topic", response.getOrderId().toString(), response);
+            sagaTracer.record(response.getOrderId(), Step.PUBLISH, response.getEventType(), start);
         } catch (Exception e) {
             log.error("❗ 응답 발행 실패: {}", e.getMessage());
         }
@@ -0,0 +1,225 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.ProcessedEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 중복 이벤트 필터 (idempotent consumer)
+ *
+ * Outbox 는 at-least-once 라서 같은 이벤트가 여러 번 올 수 있다. (리밸런스, 재시도 등)
+ * eventId 를 processed_events 테이블에 남겨서 두 번 처리하지 않는다.
+ *
+ * [빠른 경로]
+ * 1. Bloom filter 에 없음 → 확실히 처음 보는 이벤트 → DB 조회 없이 바로 처리 (대부분의 경우)
+ * 2. 최근 처리한 이벤트 LRU 에 있음 → 중복 → DB 조회 없이 무시
+ * 3. 둘 다 애매하면 그때만 DB 조회
+ *
+ * 최종 판정은 처리 트랜잭션 안의 INSERT ... ON CONFLICT DO NOTHING 이 한다. (동시에 들어와도 하나만 성공)
+ */
+@Component
+@EnableScheduling
+@Slf4j
+public class ProcessedEventFilter {
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${saga.dedup.expected-events:1000000}")
+    private int expectedEvents;
+
+    @Value("${saga.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${saga.dedup.retention-hours:168}")
+    private int retentionHours;
+
+    private final Map<UUID, Boolean> recent;
+
+    /** 두 세대를 번갈아 쓴다 → 오래된 ID 는 보존 기간이 지나면 Bloom 에서도 빠진다 */
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public ProcessedEventFilter(ProcessedEventRepository processedEventRepository,
+                                JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${saga.dedup.lru-size:100000}") int lruSize) {
+        this.processedEventRepository = processedEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > lruSize;
+            }
+        });
+    }
+
+    /** 재시작해도 중복을 놓치지 않도록 보존 기간 안의 ID 로 Bloom 을 다시 채운다 */
+    @PostConstruct
+    public void warmUp() {
+        current = new BloomFilter(expectedEvents, falsePositiveRate);
+        previous = new BloomFilter(expectedEvents, falsePositiveRate);
+
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(10_000);
+        transactionTemplate.executeWithoutResult(status -> cursor.query(
+                "SELECT event_id FROM processed_events WHERE processed_at > now() - make_interval(hours => ?)",
+                rs -> {
+                    current.add(rs.getObject(1, UUID.class));
+                }, retentionHours));
+    }
+
+    /** true 면 이미 처리한 이벤트 (eventId 가 없는 구버전 메시지는 항상 false) */
+    public boolean isDuplicate(UUID eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        if (!current.mightContain(eventId) && !previous.mightContain(eventId)) {
+            return false;
+        }
+        if (recent.containsKey(eventId)) {
+            return true;
+        }
+        boolean processed = processedEventRepository.existsById(eventId);
+        if (processed) {
+            recent.put(eventId, Boolean.TRUE);
+        }
+        return processed;
+    }
+
+    /** 처리 트랜잭션 안에서 호출: 처음 기록했으면 true, 다른 쪽이 먼저 기록했으면 false */
+    public boolean markProcessed(UUID eventId) {
+        if (eventId == null) {
+            return true;
+        }
+        return !markProcessed(List.of(eventId)).isEmpty();
+    }
+
+    /** 여러 건을 JDBC 배치 하나로 기록하고, 새로 기록된 ID 만 돌려준다 */
+    public Set<UUID> markProcessed(Collection<UUID> eventIds) {
+        List<UUID> ids = eventIds.stream().filter(id -> id != null).distinct().toList();
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        int[][] results = jdbcTemplate.batchUpdate(
+                "INSERT INTO processed_events (event_id, processed_at) VALUES (?, now()) ON CONFLICT DO NOTHING",
+                ids, ids.size(), (ps, id) -> ps.setObject(1, id));
+
+        List<UUID> inserted = new ArrayList<>(ids.size());
+        int index = 0;
+        for (int[] chunk : results) {
+            for (int count : chunk) {
+                if (count != 0) {
+                    inserted.add(ids.get(index));
+                }
+                index++;
+            }
+        }
+
+        // Bloom 은 미리 넣어도 안전 (롤백되면 오탐 한 번 → DB 조회 한 번), LRU 는 커밋 후에만
+        inserted.forEach(current::add);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inserted.forEach(id -> recent.put(id, Boolean.TRUE));
+                }
+            });
+        } else {
+            inserted.forEach(id -> recent.put(id, Boolean.TRUE));
+        }
+        return Set.copyOf(inserted);
+    }
+
+    /** 보존 기간이 지난 기록 정리 + Bloom 세대 교체 */
+    @Scheduled(fixedDelayString = "${saga.dedup.retention-hours:168}", timeUnit = java.util.concurrent.TimeUnit.HOURS,
+            initialDelayString = "${saga.dedup.retention-hours:168}")
+    public void rotate() {
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM processed_events WHERE processed_at < now() - make_interval(hours => ?)", retentionHours);
+        previous = current;
+        current = new BloomFilter(expectedEvents, falsePositiveRate);
+        log.info("🧹 처리 이벤트 기록 정리: {}건 삭제, Bloom 세대 교체", deleted);
+    }
+
+    /**
+     * UUID 전용 Bloom filter (lock-free)
+     * UUID 의 두 long 을 섞어서 double hashing 으로 k 개 위치를 만든다.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+            this.bitCount = (long) words.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void add(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        boolean mightContain(UUID id) {
+            long h1 = mix(id.getMostSignificantBits());
+            long h2 = mix(id.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** murmur3 fmix64 */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe53e87e5L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.inventory.service;
+
+import com.example.inventory.entity.Inventory;
+import com.example.inventory.event.OrderEvent;
+import com.example.inventory.repository.InventoryRepository;
+import com.example.inventory.repository.StockLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상품당 inventory 행 하나 (기본 모드)
+ *
+ * 차감/복구는 StockLedgerRepository 의 CTE 한 문장으로 처리한다 (DB 왕복 1번).
+ * 같은 상품의 주문은 모두 한 행의 락을 두고 경쟁하므로, 인기 상품에 주문이 몰리면 striped 모드를 쓴다.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.mode", havingValue = "single", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SingleRowStockStore implements StockStore {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockLedgerRepository stockLedgerRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int reserve(Long orderId, String productName, int quantity) {
+        return stockLedgerRepository.reserve(orderId, productName, quantity);
+    }
+
+    @Override
+    public int release(Long orderId) {
+        return stockLedgerRepository.release(orderId);
+    }
+
+    @Override
+    public int stock(String productName) {
+        return inventoryRepository.findByProductName(productName).map(Inventory::getStock).orElse(0);
+    }
+
+    @Override
+    @Transactional
+    public void setStock(String productName, int stock) {
+        Inventory inventory = inventoryRepository.findByProductName(productName)
+                .orElseGet(() -> Inventory.builder().productName(productName).build());
+        inventory.setStock(stock);
+        inventoryRepository.save(inventory);
+    }
+
+    /**
+     * 상품 행을 이름순으로 한 번에 잠그고 도착 순서대로 배정 → 상품당 UPDATE 1번
+     * RESERVE 원장은 JDBC 배치 INSERT
+     */
+    @Override
+    public Map<String, boolean[]> reserveAll(Map<String, List<OrderEvent>> byProduct) {
+        Map<String, Inventory> inventories = new LinkedHashMap<>();
+        for (Inventory inventory : inventoryRepository.findAllForUpdate(byProduct.keySet())) {
+            inventories.put(inventory.getProductName(), inventory);
+        }
+
+        Map<String, boolean[]> results = new LinkedHashMap<>();
+        List<OrderEvent> reserved = new ArrayList<>();
+        for (Map.Entry<String, List<OrderEvent>> entry : byProduct.entrySet()) {
+            List<OrderEvent> productEvents = entry.getValue();
+            Inventory inventory = inventories.get(entry.getKey());
+
+            int[] quantities = new int[productEvents.size()];
+            for (int i = 0; i < quantities.length; i++) {
+                quantities[i] = productEvents.get(i).getQuantity();
+            }
+            boolean[] granted = new boolean[quantities.length];
+            if (inventory != null) {
+                // 더티 체킹 → 상품당 UPDATE 1번
+                inventory.setStock(StockAllocator.allocate(inventory.getStock(), quantities, granted));
+            }
+            for (int i = 0; i < granted.length; i++) {
+                if (granted[i]) {
+                    reserved.add(productEvents.get(i));
+                }
+            }
+            results.put(entry.getKey(), granted);
+            log.debug("📦 상품별 배치 배정: product={}, 요청={}건, 남은재고={}",
+                    entry.getKey(), quantities.length, inventory != null ? inventory.getStock() : 0);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at) VALUES (?, ?, ?, 'RESERVE', ?)",
+                reserved, reserved.size(), (ps, event) -> {
+                    ps.setLong(1, event.getOrderId());
+                    ps.setString(2, event.getProductName());
+                    ps.setInt(3, event.getQuantity());
+                    ps.setTimestamp(4, now);
+                });
+        return results;
+    }
+}
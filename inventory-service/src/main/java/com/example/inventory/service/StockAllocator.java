@@ -0,0 +1,31 @@
+package com.example.inventory.service;
+
+/**
+ * 같은 상품에 몰린 재고 요청을 도착 순서대로 배정 (순수 계산, DB 접근 없음)
+ *
+ * 앞 요청이 재고를 다 써버리면 뒤 요청은 실패하지만,
+ * 뒤에 더 작은 요청이 남은 재고로 충분하면 그건 성공시킨다.
+ */
+public final class StockAllocator {
+
+    private StockAllocator() {
+    }
+
+    /**
+     * @param stock      현재 재고
+     * @param quantities 도착 순서대로 요청 수량
+     * @param granted    결과: 요청별 배정 성공 여부 (quantities 와 같은 길이)
+     * @return 배정 후 남은 재고
+     */
+    public static int allocate(int stock, int[] quantities, boolean[] granted) {
+        int remaining = stock;
+        for (int i = 0; i < quantities.length; i++) {
+            int quantity = quantities[i];
+            granted[i] = quantity > 0 && quantity <= remaining;
+            if (granted[i]) {
+                remaining -= quantity;
+            }
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.inventory.service;
+
+import com.example.inventory.event.OrderEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 재고 저장 방식 (inventory.stock.mode)
+ *
+ * - single  : 상품당 inventory 행 하나 (SingleRowStockStore, 기본값)
+ * - striped : 상품 재고를 inventory_bucket 행 N 개로 나눔 (StripedStockStore) → 인기 상품의 행 락 경합 완화
+ * - engine  : 단일 라이터 인메모리 엔진 + 메모리 매핑 저널 (StockEngine), DB 에는 주기적 스냅샷만
+ *
+ * SQL 모드에서는 차감/복구가 stock_ledger 원장과 같은 문장(또는 같은 트랜잭션)에서 처리되어
+ * 같은 주문을 두 번 차감하거나 두 번 복구하지 않는다. 엔진 모드는 메모리의 주문별 예약 맵이 같은 역할을 한다.
+ */
+public interface StockStore {
+
+    /**
+     * 조건부 재고 차감 + RESERVE 기록
+     *
+     * @return 1 = 차감 성공, 0 = 재고 부족 / 상품 없음 / 이미 차감된 주문
+     */
+    int reserve(Long orderId, String productName, int quantity);
+
+    /**
+     * 보상: 주문의 RESERVE 만큼 재고 복구 + RELEASE 기록
+     *
+     * @return 1 = 복구함, 0 = RESERVE 없음 또는 이미 복구됨
+     */
+    int release(Long orderId);
+
+    /** 현재 재고 (striped 모드면 버킷 합) */
+    int stock(String productName);
+
+    /** 상품 재고를 stock 으로 설정 (없으면 등록) */
+    void setStock(String productName, int stock);
+
+    /**
+     * 배치: 상품별 요청을 도착 순서대로 배정하고, 성공한 요청만 RESERVE 원장에 기록 (호출한 트랜잭션 안에서)
+     *
+     * @param byProduct 상품 → 도착 순서대로의 재고 요청
+     * @return 상품 → 요청별 배정 성공 여부 (요청 목록과 같은 순서)
+     */
+    Map<String, boolean[]> reserveAll(Map<String, List<OrderEvent>> byProduct);
+}
@@ -0,0 +1,291 @@
+package com.example.inventory.service;
+
+import com.example.inventory.event.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상품 재고를 inventory_bucket 행 N 개로 나눠 두는 모드 (inventory.stock.mode=striped)
+ *
+ * [차감]
+ * - 빠른 경로: 주문 ID 해시로 고른 버킷부터 이웃 순서로, 재고가 충분하고 다른 트랜잭션이 안 잡은 버킷 하나를
+ *   SKIP LOCKED 로 골라 차감 + RESERVE 기록 (SQL 한 문장) → 같은 상품 주문끼리 버킷 수만큼 나눠서 잠금
+ * - 느린 경로: 빠른 경로가 실패하면(버킷이 다 잠겼거나, 버킷 하나로는 모자람) 상품의 버킷을 전부 버킷 순서로 잠그고
+ *   합계로 판단해서 여러 버킷에서 나눠 차감 → 합계가 충분한데 실패하는 일은 없다
+ *
+ * [복구]
+ * - 덜어낸 버킷마다 덜어낸 만큼 되돌린다 (여러 버킷에서 나눠 차감했으면 stock_ledger_bucket, 아니면 원장의 bucket)
+ *
+ * 잠금 순서는 항상 (상품 이름, 버킷 번호) → 느린 경로 / 배치 경로끼리 데드락 없음
+ * (빠른 경로는 버킷 하나만 잡고 남이 잡은 버킷은 건너뛰므로 기다리지 않는다)
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.mode", havingValue = "striped")
+@RequiredArgsConstructor
+@Slf4j
+public class StripedStockStore implements StockStore {
+
+    private static final String RESERVE_ONE_BUCKET = """
+            WITH target AS (
+                SELECT id FROM inventory_bucket
+                WHERE product_name = ? AND stock >= ?
+                  AND NOT EXISTS (SELECT 1 FROM stock_ledger WHERE order_id = ? AND type = 'RESERVE')
+                ORDER BY (bucket - ? + ?) % ?
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            ), deducted AS (
+                UPDATE inventory_bucket b SET stock = b.stock - ?
+                FROM target t WHERE b.id = t.id
+                RETURNING b.product_name, b.bucket
+            )
+            INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at, bucket)
+            SELECT ?, product_name, ?, 'RESERVE', now(), bucket FROM deducted
+            """;
+
+    private static final String RELEASE = """
+            WITH released AS (
+                INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at, bucket)
+                SELECT order_id, product_name, quantity, 'RELEASE', now(), bucket FROM stock_ledger
+                WHERE order_id = ? AND type = 'RESERVE'
+                ON CONFLICT (order_id, type) DO NOTHING
+                RETURNING order_id, product_name, quantity, bucket
+            ), parts AS (
+                SELECT r.product_name, s.bucket, s.quantity
+                FROM released r JOIN stock_ledger_bucket s ON s.order_id = r.order_id
+                UNION ALL
+                SELECT r.product_name, r.bucket, r.quantity FROM released r
+                WHERE NOT EXISTS (SELECT 1 FROM stock_ledger_bucket s WHERE s.order_id = r.order_id)
+            )
+            UPDATE inventory_bucket b SET stock = b.stock + p.quantity
+            FROM parts p WHERE b.product_name = p.product_name AND b.bucket = p.bucket
+            """;
+
+    private static final String INSERT_RESERVE =
+            "INSERT INTO stock_ledger (order_id, product_name, quantity, type, created_at, bucket) VALUES (?, ?, ?, 'RESERVE', ?, ?)";
+
+    private static final String INSERT_SPLIT =
+            "INSERT INTO stock_ledger_bucket (order_id, bucket, quantity) VALUES (?, ?, ?)";
+
+    /** 잠근 버킷 한 행 (트랜잭션 안에서만 쓰는 작업용 복사본) */
+    private static final class Bucket {
+        final String productName;
+        final int bucket;
+        int stock;
+        boolean changed;
+
+        Bucket(String productName, int bucket, int stock) {
+            this.productName = productName;
+            this.bucket = bucket;
+            this.stock = stock;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 상품당 버킷 수 (setStock 때 이만큼 나눈다) */
+    @Value("${inventory.stock.buckets:8}")
+    private int buckets;
+
+    @Override
+    @Transactional
+    public int reserve(Long orderId, String productName, int quantity) {
+        if (quantity <= 0) {
+            return 0;
+        }
+        int start = bucketOf(orderId);
+        int reserved = jdbcTemplate.update(RESERVE_ONE_BUCKET,
+                productName, quantity, orderId, start, buckets, buckets, quantity, orderId, quantity);
+        if (reserved == 1) {
+            return 1;
+        }
+        return reserveAcrossBuckets(orderId, productName, quantity, start);
+    }
+
+    /** 느린 경로: 상품의 버킷을 모두 잠그고 start 버킷부터 이웃 순서로 나눠서 차감 */
+    private int reserveAcrossBuckets(Long orderId, String productName, int quantity, int start) {
+        List<Bucket> locked = lock(List.of(productName));
+        Integer alreadyReserved = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM stock_ledger WHERE order_id = ? AND type = 'RESERVE'", Integer.class, orderId);
+        int total = locked.stream().mapToInt(bucket -> bucket.stock).sum();
+        if (locked.isEmpty() || total < quantity || (alreadyReserved != null && alreadyReserved > 0)) {
+            return 0;
+        }
+
+        // start 버킷이 맨 앞에 오도록 돌린다
+        List<Bucket> rotated = new ArrayList<>(locked);
+        int offset = 0;
+        while (offset < rotated.size() && rotated.get(offset).bucket < start) {
+            offset++;
+        }
+        Collections.rotate(rotated, -offset);
+
+        Map<Integer, Integer> taken = take(rotated, quantity);
+        update(locked);
+        jdbcTemplate.update(INSERT_RESERVE, orderId, productName, quantity,
+                Timestamp.valueOf(LocalDateTime.now()), firstBucket(taken, rotated));
+        List<Object[]> splits = new ArrayList<>();
+        addSplits(splits, orderId, taken);
+        if (!splits.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SPLIT, splits);
+        }
+        log.debug("🪣 여러 버킷에서 차감: orderId={}, product={}, 수량={}", orderId, productName, quantity);
+        return 1;
+    }
+
+    /** 여러 버킷을 되돌려도 주문 하나의 복구 → 1 */
+    @Override
+    @Transactional
+    public int release(Long orderId) {
+        return jdbcTemplate.update(RELEASE, orderId) > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int stock(String productName) {
+        Integer stock = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(stock), 0) FROM inventory_bucket WHERE product_name = ?", Integer.class, productName);
+        return stock != null ? stock : 0;
+    }
+
+    /** 재고를 버킷 수로 균등하게 나눠서 다시 채운다 (나머지는 앞 버킷부터 1개씩) */
+    @Override
+    @Transactional
+    public void setStock(String productName, int stock) {
+        jdbcTemplate.update("DELETE FROM inventory_bucket WHERE product_name = ?", productName);
+        List<Object[]> rows = new ArrayList<>(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            rows.add(new Object[]{productName, bucket, stock / buckets + (bucket < stock % buckets ? 1 : 0)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_bucket (product_name, bucket, stock) VALUES (?, ?, ?)", rows);
+    }
+
+    /**
+     * 배치: 상품들의 버킷을 한 번에 잠그고, 버킷 합계로 도착 순서대로 배정한 뒤 앞 버킷부터 덜어낸다
+     * (배치 모드는 이미 상품당 UPDATE 가 한 번이라 버킷을 나눠 잠글 이득이 적다)
+     */
+    @Override
+    public Map<String, boolean[]> reserveAll(Map<String, List<OrderEvent>> byProduct) {
+        Map<String, List<Bucket>> bucketsByProduct = new LinkedHashMap<>();
+        for (Bucket bucket : lock(byProduct.keySet())) {
+            bucketsByProduct.computeIfAbsent(bucket.productName, k -> new ArrayList<>()).add(bucket);
+        }
+
+        Map<String, boolean[]> results = new LinkedHashMap<>();
+        List<Object[]> ledger = new ArrayList<>();
+        List<Object[]> splits = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<String, List<OrderEvent>> entry : byProduct.entrySet()) {
+            List<OrderEvent> productEvents = entry.getValue();
+            List<Bucket> productBuckets = bucketsByProduct.getOrDefault(entry.getKey(), List.of());
+
+            int[] quantities = new int[productEvents.size()];
+            for (int i = 0; i < quantities.length; i++) {
+                quantities[i] = productEvents.get(i).getQuantity();
+            }
+            boolean[] granted = new boolean[quantities.length];
+            int total = productBuckets.stream().mapToInt(bucket -> bucket.stock).sum();
+            int remaining = StockAllocator.allocate(total, quantities, granted);
+
+            for (int i = 0; i < granted.length; i++) {
+                if (granted[i]) {
+                    OrderEvent event = productEvents.get(i);
+                    Map<Integer, Integer> taken = take(productBuckets, event.getQuantity());
+                    ledger.add(new Object[]{event.getOrderId(), event.getProductName(), event.getQuantity(), now,
+                            firstBucket(taken, productBuckets)});
+                    addSplits(splits, event.getOrderId(), taken);
+                }
+            }
+            results.put(entry.getKey(), granted);
+            log.debug("📦 상품별 배치 배정: product={}, 요청={}건, 남은재고={}", entry.getKey(), quantities.length, remaining);
+        }
+
+        update(bucketsByProduct.values().stream().flatMap(List::stream).toList());
+        jdbcTemplate.batchUpdate(INSERT_RESERVE, ledger);
+        if (!splits.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SPLIT, splits);
+        }
+        return results;
+    }
+
+    /** 주문 ID → 처음 시도할 버킷 (연속된 ID 도 고르게 퍼지도록 섞는다) */
+    private int bucketOf(Long orderId) {
+        return Math.floorMod(Long.hashCode(orderId * 0x9E3779B97F4A7C15L), buckets);
+    }
+
+    /** 상품들의 버킷을 (상품 이름, 버킷 번호) 순서로 잠근다 */
+    private List<Bucket> lock(Iterable<String> productNames) {
+        List<String> names = new ArrayList<>();
+        productNames.forEach(names::add);
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(names.size(), "?"));
+        return jdbcTemplate.query(
+                "SELECT product_name, bucket, stock FROM inventory_bucket WHERE product_name IN (" + placeholders + ")"
+                        + " ORDER BY product_name, bucket FOR UPDATE",
+                (rs, rowNum) -> new Bucket(rs.getString(1), rs.getInt(2), rs.getInt(3)),
+                names.toArray());
+    }
+
+    /**
+     * 앞 버킷부터 quantity 만큼 덜어낸다 (합계가 충분한지는 호출한 쪽에서 확인)
+     *
+     * @return 버킷 번호 → 덜어낸 수량 (덜어낸 순서대로) = 복구 때 되돌릴 내역
+     */
+    private static Map<Integer, Integer> take(List<Bucket> buckets, int quantity) {
+        int need = quantity;
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        for (Bucket bucket : buckets) {
+            if (need == 0) {
+                break;
+            }
+            int amount = Math.min(bucket.stock, need);
+            if (amount == 0) {
+                continue;
+            }
+            bucket.stock -= amount;
+            bucket.changed = true;
+            need -= amount;
+            taken.put(bucket.bucket, amount);
+        }
+        return taken;
+    }
+
+    /** 원장의 bucket: 처음 덜어낸 버킷 (수량 0 이면 맨 앞 버킷) */
+    private static int firstBucket(Map<Integer, Integer> taken, List<Bucket> buckets) {
+        return taken.isEmpty() ? buckets.get(0).bucket : taken.keySet().iterator().next();
+    }
+
+    /** 두 버킷 이상에서 덜어냈으면 버킷별 수량을 stock_ledger_bucket 행으로 */
+    private static void addSplits(List<Object[]> splits, Long orderId, Map<Integer, Integer> taken) {
+        if (taken.size() < 2) {
+            return;
+        }
+        taken.forEach((bucket, amount) -> splits.add(new Object[]{orderId, bucket, amount}));
+    }
+
+    /** 바뀐 버킷만 UPDATE (JDBC 배치) */
+    private void update(List<Bucket> locked) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Bucket bucket : locked) {
+            if (bucket.changed) {
+                rows.add(new Object[]{bucket.stock, bucket.productName, bucket.bucket});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE inventory_bucket SET stock = ? WHERE product_name = ? AND bucket = ?", rows);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.inventory.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Saga 단계 하나를 JFR 이벤트로 남긴다
+ *
+ * JFR 녹화가 켜져 있을 때만 기록되고, 꺼져 있으면 shouldCommit() 에서 바로 빠진다.
+ * jfr print --events com.example.saga.Step saga.jfr 로 주문별 타임라인을 뽑을 수 있다.
+ */
+@Name("com.example.saga.Step")
+@Label("Saga Step")
+@Category("Saga")
+@Description("Saga 단계 (요청 수신 / DB 트랜잭션 / 응답 발행)")
+@StackTrace(false)
+class SagaStepEvent extends Event {
+
+    @Label("Service")
+    String service;
+
+    @Label("Order ID")
+    long orderId;
+
+    @Label("Step")
+    String step;
+
+    @Label("Detail")
+    String detail;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
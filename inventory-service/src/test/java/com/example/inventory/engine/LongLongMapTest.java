@@ -0,0 +1,98 @@
+package com.example.inventory.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongLongMapTest {
+
+    private static final long MISSING = -1;
+
+    @Test
+    void keepsEntriesAcrossResizes() {
+        LongLongMap map = new LongLongMap(4);
+
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, key * 10);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 1; key <= 10_000; key++) {
+            assertThat(map.get(key, MISSING)).isEqualTo(key * 10);
+        }
+        assertThat(map.get(10_001, MISSING)).isEqualTo(MISSING);
+    }
+
+    @Test
+    void putOverwritesWithoutGrowing() {
+        LongLongMap map = new LongLongMap(4);
+        map.put(7, 1);
+        map.put(7, 2);
+
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(7, MISSING)).isEqualTo(2);
+    }
+
+    /** 삭제 뒤 당겨 채운 칸이 탐사 사슬을 끊지 않는지 (남은 키가 모두 다시 찾아져야 한다) */
+    @Test
+    void removeKeepsRemainingKeysReachable() {
+        LongLongMap map = new LongLongMap(16);
+        for (long key = 1; key <= 1_000; key++) {
+            map.put(key, key);
+        }
+
+        for (long key = 1; key <= 1_000; key += 2) {
+            map.remove(key);
+        }
+        map.remove(5_000); // 없는 키는 무시
+
+        assertThat(map.size()).isEqualTo(500);
+        for (long key = 1; key <= 1_000; key++) {
+            assertThat(map.get(key, MISSING)).isEqualTo(key % 2 == 0 ? key : MISSING);
+        }
+
+        map.put(1, 100);
+        assertThat(map.get(1, MISSING)).isEqualTo(100);
+        assertThat(map.size()).isEqualTo(501);
+    }
+
+    /** 작은 키 공간에서 put / remove 를 섞어 HashMap 과 비교 (충돌 + 당겨 채우기가 자주 일어나게) */
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongLongMap map = new LongLongMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(512);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                long value = random.nextLong();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 512; key++) {
+            assertThat(map.get(key, MISSING)).isEqualTo(expected.getOrDefault(key, MISSING));
+        }
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void rejectsZeroKey() {
+        LongLongMap map = new LongLongMap(4);
+
+        assertThatThrownBy(() -> map.put(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.inventory.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    @Test
+    void offerFailsWhenFullAndSucceedsAfterDrain() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(3); // 4 칸으로 올림
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+
+        Integer[] out = new Integer[8];
+        assertThat(ring.drainTo(out, 2)).isEqualTo(2);
+        assertThat(out).startsWith(0, 1);
+
+        assertThat(ring.offer(4)).isTrue();
+        assertThat(ring.offer(5)).isTrue();
+        assertThat(ring.drainTo(out, 8)).isEqualTo(4);
+        assertThat(out).startsWith(2, 3, 4, 5);
+        assertThat(ring.size()).isZero();
+    }
+
+    /**
+     * 생산자 여럿이 작은 링에 동시에 넣고 (가득 차면 다시 시도) 소비자 하나가 비운다
+     * → 빠짐 / 중복 없이 전부 받고, 생산자별로는 넣은 순서 그대로
+     */
+    @Test
+    void drainsEveryElementFromConcurrentProducersInPerProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscRingBuffer<Long> ring = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        LockSupport.parkNanos(1_000); // 엔진의 submit 과 같은 배압
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        Long[] out = new Long[32];
+        long received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < (long) producers * perProducer && System.nanoTime() < deadline) {
+            int count = ring.drainTo(out, out.length);
+            if (count == 0) {
+                Thread.yield();
+            }
+            for (int i = 0; i < count; i++) {
+                int producer = (int) (out[i] / perProducer);
+                assertThat(out[i] % perProducer).isEqualTo(next[producer]);
+                next[producer]++;
+            }
+            received += count;
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(received).isEqualTo((long) producers * perProducer);
+        assertThat(next).containsOnly(perProducer);
+        assertThat(ring.drainTo(out, out.length)).isZero();
+    }
+}
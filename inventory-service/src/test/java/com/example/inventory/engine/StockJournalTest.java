@@ -0,0 +1,137 @@
+package com.example.inventory.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 세그먼트 하나에 레코드 2개 (헤더 64B + 32B x 2) → 세그먼트 경계를 짧게 넘나든다
+ */
+class StockJournalTest {
+
+    private static final int HEADER_SIZE = 64;
+    private static final int SEGMENT_SIZE = HEADER_SIZE + 2 * StockJournal.RECORD_SIZE;
+    private static final long EPOCH = 7;
+
+    @TempDir
+    Path dir;
+
+    private record Entry(long seq, byte type, long orderId, long productId, int quantity, byte result) {
+    }
+
+    @Test
+    void replaysAppendedRecordsAcrossSegments() throws IOException {
+        try (StockJournal journal = new StockJournal(dir, SEGMENT_SIZE)) {
+            journal.open(EPOCH, 1);
+            for (long seq = 1; seq <= 5; seq++) {
+                journal.append(seq, (byte) (seq % 3), 100 + seq, 10 + seq, (int) seq * 2, (byte) 1);
+            }
+        }
+
+        assertThat(segmentCount()).isEqualTo(3);
+        List<Entry> entries = new ArrayList<>();
+        long last = replay(EPOCH, 0, entries);
+
+        assertThat(last).isEqualTo(5);
+        assertThat(entries).extracting(Entry::seq).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(entries.get(3)).isEqualTo(new Entry(4, (byte) 1, 104, 14, 8, (byte) 1));
+    }
+
+    @Test
+    void replaySkipsRecordsUpToAfterSeqAndOtherEpochs() throws IOException {
+        try (StockJournal journal = new StockJournal(dir, SEGMENT_SIZE)) {
+            journal.open(EPOCH, 1);
+            for (long seq = 1; seq <= 3; seq++) {
+                journal.append(seq, (byte) 0, seq, 1, 1, (byte) 1);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        assertThat(replay(EPOCH, 2, entries)).isEqualTo(3);
+        assertThat(entries).extracting(Entry::seq).containsExactly(3L);
+
+        entries.clear();
+        assertThat(replay(EPOCH + 1, 0, entries)).isZero();
+        assertThat(entries).isEmpty();
+    }
+
+    /** 스냅샷이 덮은 닫힌 세그먼트만 지우고, 열린 세그먼트와 덜 덮인 세그먼트는 남긴다 */
+    @Test
+    void deleteUpToTruncatesOnlyCoveredClosedSegments() throws IOException {
+        try (StockJournal journal = new StockJournal(dir, SEGMENT_SIZE)) {
+            journal.open(EPOCH, 1);
+            for (long seq = 1; seq <= 5; seq++) {
+                journal.append(seq, (byte) 0, seq, 1, 1, (byte) 1);
+            }
+
+            journal.deleteUpTo(3); // [1,2] 만 지울 수 있음, [3,4] 는 4 가 아직 안 덮임
+            assertThat(segmentCount()).isEqualTo(2);
+
+            journal.deleteUpTo(5); // [3,4] 삭제, [5] 는 열린 세그먼트라 남는다
+            assertThat(segmentCount()).isEqualTo(1);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        assertThat(replay(EPOCH, 0, entries)).isEqualTo(5);
+        assertThat(entries).extracting(Entry::seq).containsExactly(5L);
+    }
+
+    /** seq 를 쓰기 전에 죽은 레코드(나머지 필드만 기록됨)에서 재생이 멈춘다 */
+    @Test
+    void replayStopsAtTornRecord() throws IOException {
+        try (StockJournal journal = new StockJournal(dir, SEGMENT_SIZE * 2)) {
+            journal.open(EPOCH, 1);
+            journal.append(1, (byte) 0, 11, 1, 1, (byte) 1);
+            journal.append(2, (byte) 0, 12, 1, 1, (byte) 1);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(StockJournal.RECORD_SIZE - 8);
+            torn.putLong(13).putLong(1).putInt(1).put((byte) 0).put((byte) 1).flip();
+            channel.write(torn, HEADER_SIZE + 2L * StockJournal.RECORD_SIZE + 8);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        assertThat(replay(EPOCH, 0, entries)).isEqualTo(2);
+        assertThat(entries).extracting(Entry::orderId).containsExactly(11L, 12L);
+    }
+
+    @Test
+    void deleteAllRemovesEverySegment() throws IOException {
+        try (StockJournal journal = new StockJournal(dir, SEGMENT_SIZE)) {
+            journal.open(EPOCH, 1);
+            for (long seq = 1; seq <= 3; seq++) {
+                journal.append(seq, (byte) 0, seq, 1, 1, (byte) 1);
+            }
+            journal.deleteAll();
+        }
+
+        assertThat(segmentCount()).isZero();
+    }
+
+    private long replay(long epoch, long afterSeq, List<Entry> entries) throws IOException {
+        return new StockJournal(dir, SEGMENT_SIZE).replay(epoch, afterSeq,
+                (seq, type, orderId, productId, quantity, result) ->
+                        entries.add(new Entry(seq, type, orderId, productId, quantity, result)));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.inventory.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 임베디드 Postgres 위에서 느린 경로(여러 버킷에서 나눠 차감) → 복구 후 버킷별 / 합계 재고 확인
+ * 테이블은 엔티티(InventoryBucket, StockLedger, StockLedgerBucket)와 같은 모양으로 직접 만든다
+ */
+class StripedStockStoreTest {
+
+    private static final int BUCKETS = 4;
+    private static final String PRODUCT = "apple";
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    private StripedStockStore store;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute("""
+                CREATE TABLE inventory_bucket (
+                    id bigserial PRIMARY KEY, product_name varchar(255), bucket int NOT NULL, stock int NOT NULL,
+                    UNIQUE (product_name, bucket))
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE stock_ledger (
+                    id bigserial PRIMARY KEY, order_id bigint, product_name varchar(255), quantity int NOT NULL,
+                    type varchar(255), created_at timestamp(6), bucket int,
+                    UNIQUE (order_id, type))
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE stock_ledger_bucket (
+                    id bigserial PRIMARY KEY, order_id bigint, bucket int NOT NULL, quantity int NOT NULL,
+                    UNIQUE (order_id, bucket))
+                """);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE inventory_bucket, stock_ledger, stock_ledger_bucket");
+        store = new StripedStockStore(jdbcTemplate);
+        ReflectionTestUtils.setField(store, "buckets", BUCKETS);
+        store.setStock(PRODUCT, 8); // 버킷마다 2
+    }
+
+    @Test
+    void splitReservationIsReturnedToEveryBucketItCameFrom() {
+        // 버킷 하나로는 모자람 → 느린 경로: 시작 버킷부터 2 + 2 + 1
+        assertThat(store.reserve(1L, PRODUCT, 5)).isEqualTo(1);
+
+        int start = reservedBucket(1L);
+        assertThat(store.stock(PRODUCT)).isEqualTo(3);
+        assertThat(bucketStock(start)).isZero();
+        assertThat(bucketStock((start + 1) % BUCKETS)).isZero();
+        assertThat(bucketStock((start + 2) % BUCKETS)).isEqualTo(1);
+        assertThat(bucketStock((start + 3) % BUCKETS)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT quantity FROM stock_ledger_bucket WHERE order_id = 1 ORDER BY quantity", Integer.class))
+                .containsExactly(1, 2, 2);
+
+        assertThat(store.release(1L)).isEqualTo(1);
+
+        assertThat(store.stock(PRODUCT)).isEqualTo(8);
+        assertThat(bucketStocks()).containsExactly(2, 2, 2, 2);
+    }
+
+    @Test
+    void releaseIsIdempotent() {
+        store.reserve(1L, PRODUCT, 5);
+
+        assertThat(store.release(1L)).isEqualTo(1);
+        assertThat(store.release(1L)).isZero();
+
+        assertThat(bucketStocks()).containsExactly(2, 2, 2, 2);
+    }
+
+    @Test
+    void singleBucketReservationIsReturnedThroughTheLedgerBucket() {
+        // 버킷 하나로 충분 → 빠른 경로, 분할 내역 없음
+        assertThat(store.reserve(2L, PRODUCT, 2)).isEqualTo(1);
+        int bucket = reservedBucket(2L);
+        assertThat(bucketStock(bucket)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM stock_ledger_bucket WHERE order_id = 2", Integer.class)).isZero();
+
+        // 나머지 6 을 느린 경로로 전부 차감한 뒤 빠른 경로 주문만 복구 → 그 버킷만 돌아온다
+        assertThat(store.reserve(3L, PRODUCT, 6)).isEqualTo(1);
+        assertThat(store.stock(PRODUCT)).isZero();
+
+        assertThat(store.release(2L)).isEqualTo(1);
+
+        assertThat(store.stock(PRODUCT)).isEqualTo(2);
+        assertThat(bucketStock(bucket)).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWhenTotalStockIsShortAndLeavesBucketsUntouched() {
+        assertThat(store.reserve(1L, PRODUCT, 9)).isZero();
+
+        assertThat(bucketStocks()).containsExactly(2, 2, 2, 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM stock_ledger", Integer.class)).isZero();
+    }
+
+    private int reservedBucket(long orderId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT bucket FROM stock_ledger WHERE order_id = ? AND type = 'RESERVE'", Integer.class, orderId);
+    }
+
+    private int bucketStock(int bucket) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock FROM inventory_bucket WHERE product_name = ? AND bucket = ?", Integer.class, PRODUCT, bucket);
+    }
+
+    private List<Integer> bucketStocks() {
+        return jdbcTemplate.queryForList(
+                "SELECT stock FROM inventory_bucket WHERE product_name = ? ORDER BY bucket", Integer.class, PRODUCT);
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.order.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 송신량에 맞춰 프로듀서를 고르는 Kafka 발행기
+ *
+ * linger.ms / batch.size / compression.type 은 KafkaProducer 를 만들 때 정해져서 실행 중에 바꿀 수 없다.
+ * 그래서 설정이 다른 프로듀서를 두 벌 두고, 관측한 송신률에 따라 골라 쓴다.
+ * - LATENCY : linger 0, 작은 batch, 무압축 → 한산할 때 이벤트가 기다리지 않고 바로 나감
+ * - BULK    : linger 수 ms, 큰 batch, 토픽별 압축 → 몰릴 때 produce 요청 수를 줄이고 배치를 꽉 채움
+ *
+ * [전환]
+ * - 곧 min-batch 건 이상 보낼 예정(릴레이 페이지, 배치 응답)이거나 송신률(EWMA)이 enter-rate 이상 → 바로 BULK
+ * - 송신률이 exit-rate 아래로 떨어지고 BULK 로 min-dwell-ms 이상 지났으면 → LATENCY
+ * - 넘어가기 전에 이전 프로듀서를 flush → 프로듀서가 바뀌어도 같은 키의 레코드 순서가 유지된다
+ *
+ * 모든 프로듀서는 spring.kafka.producer 설정(acks=all, enable.idempotence=true)을 그대로 물려받는다.
+ *
+ * 세 서비스가 같은 파일을 패키지만 바꿔 하나씩 갖는다 (공유 모듈 없음). 값 타입은 V 로 받으니
+ * 고칠 땐 나머지 두 서비스의 사본도 똑같이 맞출 것.
+ *
+ * @param <V> 레코드 값 타입 (order: 인코딩된 byte[], payment / inventory: OrderEvent)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveKafkaProducer<V> {
+
+    public enum Mode {
+        LATENCY, BULK
+    }
+
+    /** 송신률 측정 구간 */
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** 구간 하나가 EWMA 에 반영되는 비중 */
+    private static final double ALPHA = 0.3;
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+
+    /** false 면 항상 LATENCY 프로듀서만 사용 */
+    @Value("${saga.producer.adaptive:true}")
+    private boolean adaptive;
+
+    @Value("${saga.producer.enter-rate:1000}")
+    private double enterRate;
+
+    @Value("${saga.producer.exit-rate:200}")
+    private double exitRate;
+
+    @Value("${saga.producer.min-batch:50}")
+    private int minBatch;
+
+    @Value("${saga.producer.min-dwell-ms:2000}")
+    private long minDwellMs;
+
+    @Value("${saga.producer.latency.linger-ms:0}")
+    private int latencyLingerMs;
+
+    @Value("${saga.producer.latency.batch-size:16384}")
+    private int latencyBatchSize;
+
+    @Value("${saga.producer.bulk.linger-ms:20}")
+    private int bulkLingerMs;
+
+    @Value("${saga.producer.bulk.batch-size:262144}")
+    private int bulkBatchSize;
+
+    @Value("${saga.producer.bulk.compression:lz4}")
+    private String bulkCompression;
+
+    /** 토픽별 BULK 압축 코덱 (없는 토픽은 bulk.compression) */
+    @Value("#{${saga.producer.bulk.topic-compression:{:}}}")
+    private Map<String, String> topicCompression;
+
+    private KafkaTemplate<String, V> latencyTemplate;
+    /** 압축 코덱 → BULK 프로듀서 (처음 쓰일 때 만든다) */
+    private final Map<String, KafkaTemplate<String, V>> bulkTemplates = new ConcurrentHashMap<>();
+    private final Map<Mode, LongAdder> sentByMode = new EnumMap<>(Mode.class);
+
+    /** 전송은 읽기 락, 전환(flush + 모드 변경)은 쓰기 락 */
+    private final ReadWriteLock switchLock = new ReentrantReadWriteLock();
+    /** 송신률 갱신은 한 스레드만 (가상 스레드 pinning 을 피하려고 synchronized 대신) */
+    private final ReentrantLock adaptLock = new ReentrantLock();
+    private final LongAdder windowSent = new LongAdder();
+    private volatile Mode mode = Mode.LATENCY;
+    private volatile long windowStart = System.nanoTime();
+    private volatile long switchedAt = System.nanoTime();
+    private volatile double rate;
+
+    @PostConstruct
+    public void init() {
+        latencyTemplate = createTemplate(Mode.LATENCY, "none");
+
+        for (Mode m : Mode.values()) {
+            LongAdder sent = new LongAdder();
+            sentByMode.put(m, sent);
+            String tag = m.name().toLowerCase();
+            FunctionCounter.builder("saga.producer.records", sent, LongAdder::sum)
+                    .description("프로듀서 모드별 전송 건수")
+                    .tag("mode", tag)
+                    .register(meterRegistry);
+            Gauge.builder("saga.producer.batch.fill", this, producer -> producer.batchFill(m))
+                    .description("평균 배치 크기 / batch.size")
+                    .tag("mode", tag)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("saga.producer.send.rate", this, producer -> producer.rate)
+                .description("관측한 송신률 (EWMA, 건/초)")
+                .register(meterRegistry);
+        Gauge.builder("saga.producer.mode", this, producer -> producer.mode == Mode.BULK ? 1 : 0)
+                .description("현재 프로듀서 (0: latency, 1: bulk)")
+                .register(meterRegistry);
+    }
+
+    /** 한 번에 records 건을 보내기 직전에 호출 → 많으면 BULK 로 넘어간다 */
+    public void beginBatch(int records) {
+        adapt(records);
+    }
+
+    public CompletableFuture<SendResult<String, V>> send(String topic, String key, V value) {
+        adapt(1);
+        Lock lock = switchLock.readLock();
+        lock.lock();
+        try {
+            Mode current = mode;
+            sentByMode.get(current).increment();
+            windowSent.increment();
+            return template(current, topic).send(topic, key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 현재 프로듀서에 쌓인 배치를 바로 내보낸다 */
+    public void flush() {
+        Lock lock = switchLock.readLock();
+        lock.lock();
+        try {
+            templates(mode).forEach(KafkaTemplate::flush);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        List<KafkaTemplate<String, V>> all = new ArrayList<>(bulkTemplates.values());
+        all.add(latencyTemplate);
+        for (KafkaTemplate<String, V> template : all) {
+            if (template.getProducerFactory() instanceof DisposableBean factory) {
+                factory.destroy();
+            }
+        }
+    }
+
+    /** 모드별 프로듀서 생성 (spring.kafka.producer 설정 + linger / batch / 압축만 덮어씀) */
+    protected KafkaTemplate<String, V> createTemplate(Mode mode, String compression) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, mode == Mode.BULK ? bulkLingerMs : latencyLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize(mode));
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+
+        DefaultKafkaProducerFactory<String, V> factory = new DefaultKafkaProducerFactory<>(props);
+        // kafka.producer.* 메트릭 (record.send.rate, batch.size.avg, records.per.request.avg, compression.rate.avg ...)
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry,
+                List.of(Tag.of("mode", mode.name().toLowerCase()), Tag.of("compression", compression))));
+        log.info("📤 프로듀서 생성: mode={}, compression={}", mode, compression);
+        return new KafkaTemplate<>(factory);
+    }
+
+    /**
+     * 송신률 갱신 + 모드 결정
+     * 구간(100ms)이 안 지났고 큰 배치도 아니면 바로 빠져나간다 → 건별 전송 경로에서 거의 공짜
+     */
+    private void adapt(int upcoming) {
+        if (!adaptive) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (upcoming < minBatch && now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        if (!adaptLock.tryLock()) {
+            return;
+        }
+        try {
+            long elapsed = now - windowStart;
+            if (elapsed >= WINDOW_NANOS) {
+                // 오래 조용했으면 그만큼 더 빨리 잊는다
+                double decay = Math.pow(1 - ALPHA, (double) elapsed / WINDOW_NANOS);
+                double observed = windowSent.sumThenReset() * 1e9 / elapsed;
+                rate = rate * decay + observed * (1 - decay);
+                windowStart = now;
+            }
+
+            Mode target = mode;
+            if (upcoming >= minBatch || rate >= enterRate) {
+                target = Mode.BULK;
+            } else if (rate < exitRate && now - switchedAt >= TimeUnit.MILLISECONDS.toNanos(minDwellMs)) {
+                target = Mode.LATENCY;
+            }
+            if (target != mode) {
+                switchTo(target, now);
+            }
+        } finally {
+            adaptLock.unlock();
+        }
+    }
+
+    private void switchTo(Mode target, long now) {
+        Lock lock = switchLock.writeLock();
+        lock.lock();
+        try {
+            // 이전 프로듀서에 남은 배치를 먼저 내보낸다 → 같은 키의 레코드가 새 프로듀서로 앞질러 가지 않음
+            templates(mode).forEach(KafkaTemplate::flush);
+            mode = target;
+            switchedAt = now;
+        } finally {
+            lock.unlock();
+        }
+        log.debug("🔀 프로듀서 전환: {} (송신률 {}/s)", target, Math.round(rate));
+    }
+
+    private KafkaTemplate<String, V> template(Mode mode, String topic) {
+        if (mode == Mode.LATENCY) {
+            return latencyTemplate;
+        }
+        String compression = topicCompression.getOrDefault(topic, bulkCompression);
+        return bulkTemplates.computeIfAbsent(compression, codec -> createTemplate(Mode.BULK, codec));
+    }
+
+    private Collection<KafkaTemplate<String, V>> templates(Mode mode) {
+        return mode == Mode.LATENCY ? List.of(latencyTemplate) : bulkTemplates.values();
+    }
+
+    private int batchSize(Mode mode) {
+        return mode == Mode.BULK ? bulkBatchSize : latencyBatchSize;
+    }
+
+    /** 프로듀서가 보고하는 batch-size-avg 를 설정한 batch.size 로 나눈 값 (아직 안 쓴 모드는 0) */
+    private double batchFill(Mode mode) {
+        if (sentByMode.get(mode).sum() == 0) {
+            return 0;
+        }
+        double sum = 0;
+        int count = 0;
+        for (KafkaTemplate<String, V> template : templates(mode)) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : template.metrics().entrySet()) {
+                if ("batch-size-avg".equals(entry.getKey().name())
+                        && "producer-metrics".equals(entry.getKey().group())
+                        && entry.getValue().metricValue() instanceof Double value
+                        && !value.isNaN()) {
+                    sum += value;
+                    count++;
+                }
+            }
+        }
+        return count == 0 ? 0 : sum / count / batchSize(mode);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.order.config;
+
+import com.example.order.event.KeyedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * poll 한 번에 받은 레코드를 List 로 통째로 넘겨주는 배치 리스너용
+     * Boot configurer 를 거쳐서 기본 팩토리와 같은 설정(가상 스레드 포함)을 물려받는다.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /** 주문 ID 별로 순서를 지키면서 서로 다른 주문은 병렬로 처리 */
+    @Bean(destroyMethod = "shutdown")
+    public KeyedExecutor sagaKeyedExecutor(@Value("${saga.listener.keyed-executor.threads:8}") int threads,
+                                           @Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        return new KeyedExecutor("saga-keyed", threads, virtual);
+    }
+
+}
@@ -1,27 +1,36 @@
 package com.example.order.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * 파티션 수 = 토픽을 동시에 처리할 수 있는 최대 컨슈머 스레드 수
+ * 메시지 키가 주문 ID 라서 같은 주문의 이벤트는 항상 같은 파티션 → 순서 유지
+ * (이미 있는 토픽은 파티션이 늘어나기만 하고, 늘리면 키 → 파티션 매핑이 바뀐다)
+ */
 @Configuration
 public class KafkaTopicConfig {
 
+    @Value("${saga.topics.partitions:1}")
+    private int partitions;
+
     /** Order → Payment 으로 보내는 토픽 */
     @Bean
     public NewTopic paymentTopic() {
-        return new NewTopic("payment-topic", 1, (short) 1);
+        return new NewTopic("payment-topic", partitions, (short) 1);
     }
 
     /** Order → Inventory 로 보내는 토픽 */
     @Bean
     public NewTopic inventoryTopic() {
-        return new NewTopic("inventory-topic", 1, (short) 1);
+        return new NewTopic("inventory-topic", partitions, (short) 1);
     }
 
     /** Payment/Inventory → Order 로 응답하는 토픽 */
     @Bean
     public NewTopic orderResponseTopic() {
-        return new NewTopic("order-response-topic", 1, (short) 1);
+        return new NewTopic("order-response-topic", partitions, (short) 1);
     }
 }
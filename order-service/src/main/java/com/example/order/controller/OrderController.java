@@ -1,13 +1,42 @@
 package com.example.order.controller;
 
+import com.example.order.dto.OrderRequest;
+import com.example.order.dto.OrderPage;
 import com.example.order.entity.Order;
+import com.example.order.entity.Order.OrderStatus;
+import com.example.order.repository.OrderQueryRepository;
+import com.example.order.repository.OrderQueryRepository.OrderQuery;
 import com.example.order.repository.OrderRepository;
 import com.example.order.service.OrderService;
+import com.example.order.service.OrderStatusNotifier;
+import com.example.order.service.SagaStateStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -17,21 +46,58 @@ public class OrderController {
     private final OrderService orderService;
     private final OrderRepository orderRepository;
 
+    private final OrderQueryRepository orderQueryRepository;
+    private final SagaStateStore sagaStateStore;
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${order.query.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${order.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${order.query.max-concurrent-streams:4}")
+    private int maxConcurrentStreams;
+
+    private static final String STREAM_SLOT_INTERCEPTOR = OrderController.class.getName() + ".streamSlot";
+
+    /** 진행 중인 NDJSON 스트림 수 (스트림마다 풀 연결을 하나씩 잡는다) */
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
     /**
      * 주문 생성 API
      * POST /api/orders
      * { "productName": "맥북", "quantity": 1, "price": 2000000 }
      */
     @PostMapping
-        public ResponseEntity<Order> createOrder(@RequestBody Map<String, Object> request) {
-        String productName = (String) request.get("productName");
-        int quantity = (int) request.get("quantity");
-        int price = (int) request.get("price");
-
-        Order order = orderService.createOrder(productName, quantity, price);
+    public ResponseEntity<Order> createOrder(@RequestBody OrderRequest request) {
+        Order order = orderService.createOrder(request.productName(), request.quantity(), request.price());
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * 대량 주문 생성 API (한 트랜잭션, JDBC 배치 INSERT)
+     * POST /api/orders/batch
+     * [ { "productName": "맥북", "quantity": 1, "price": 2000000 }, ... ]
+     * 하나라도 잘못된 요청(상품명 없음, 수량 / 가격 0 이하)이 섞여 있으면 아무것도 저장하지 않고 400
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Order>> createOrders(@RequestBody List<OrderRequest> requests) {
+        if (requests.isEmpty() || requests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (OrderRequest request : requests) {
+            if (request == null || !request.isValid()) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(orderService.createOrders(requests));
+    }
+
     /** 주문 상태 조회 */
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrder(@PathVariable Long id) {
@@ -40,9 +106,103 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    /** 전체 주문 조회 */
+    /**
+     * 주문 상태 푸시 (SSE)
+     * GET /api/orders/{id}/events
+     * 연결 즉시 현재 상태 1번 + 이후 전이마다 "status" 이벤트, 최종 상태(COMPLETED/CANCELLED)에서 종료
+     * 연결이 한도를 넘으면 503 → 잠시 후 재시도하거나 폴링
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatus(@PathVariable Long id) {
+        try {
+            sagaStateStore.committed(id);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+        // 아직 flush 안 된 전이가 아니라 커밋된 상태부터 (그 전이는 커밋되면 알림으로 온다)
+        SseEmitter emitter = orderStatusNotifier.subscribe(id, () -> sagaStateStore.committed(id).status());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * 주문 목록 조회 (키셋 페이지)
+     * GET /api/orders?status=COMPLETED&from=2024-01-01T00:00:00&to=...&after=1200&size=100
+     */
     @GetMapping
-    public ResponseEntity<?> getAllOrders() {
-        return ResponseEntity.ok(orderRepository.findAll());
+    public ResponseEntity<OrderPage> getOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        int limit = Math.min(size != null && size > 0 ? size : defaultPageSize, maxPageSize);
+        List<Order> items = orderQueryRepository.findPage(new OrderQuery(status, from, to), after, limit);
+        Long nextCursor = items.size() == limit ? items.get(items.size() - 1).getId() : null;
+        return ResponseEntity.ok(new OrderPage(items, nextCursor));
+    }
+
+    /**
+     * 주문 목록 스트리밍 (NDJSON, 한 줄 = 주문 하나)
+     * GET /api/orders/stream?status=...&from=...&to=...
+     * DB 커서에서 읽는 대로 바로 응답에 써서 건수와 상관없이 메모리 일정
+     * 동시 스트림이 한도(max-concurrent-streams)를 넘으면 503 → 스트림이 연결 풀을 다 차지하지 않도록
+     * 응답 전체의 수명은 spring.mvc.async.request-timeout (= stream-timeout-seconds)
+     * 스트림 자리는 비동기 요청이 끝날 때(정상 / 타임아웃 / 오류 / 본문이 시작도 못 한 경우 모두) 돌려준다
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletRequest request) {
+        if (activeStreams.incrementAndGet() > maxConcurrentStreams) {
+            activeStreams.decrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable releaseSlot = () -> {
+            if (released.compareAndSet(false, true)) {
+                activeStreams.decrementAndGet();
+            }
+        };
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(STREAM_SLOT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        releaseSlot.run();
+                    }
+                });
+        StreamingResponseBody body = out -> {
+            try {
+                // 행마다 flush 하지 않고 응답 버퍼가 찰 때만 내보낸다
+                ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.setRootValueSeparator(null);
+                try {
+                    orderQueryRepository.stream(new OrderQuery(status, from, to), order -> {
+                        try {
+                            writer.writeValue(generator, order);
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } finally {
+                    generator.flush();
+                }
+            } finally {
+                releaseSlot.run();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 }
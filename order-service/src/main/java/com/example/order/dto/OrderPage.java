@@ -0,0 +1,12 @@
+package com.example.order.dto;
+
+import com.example.order.entity.Order;
+
+import java.util.List;
+
+/**
+ * 주문 목록 한 페이지
+ * nextCursor 를 다음 요청의 after 로 넘기면 이어서 조회 (마지막 페이지면 null)
+ */
+public record OrderPage(List<Order> items, Long nextCursor) {
+}
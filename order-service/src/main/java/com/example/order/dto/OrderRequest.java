@@ -0,0 +1,13 @@
+package com.example.order.dto;
+
+/**
+ * 주문 생성 요청
+ * { "productName": "맥북", "quantity": 1, "price": 2000000 }
+ */
+public record OrderRequest(String productName, int quantity, int price) {
+
+    /** 상품명이 있고 수량 / 가격이 양수 */
+    public boolean isValid() {
+        return productName != null && !productName.isBlank() && quantity > 0 && price > 0;
+    }
+}
@@ -2,16 +2,26 @@ package com.example.order.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 상태 필터 + id 키셋 페이지 조회용
+        @Index(name = "orders_status_id_idx", columnList = "status, id"),
+        @Index(name = "orders_created_at_idx", columnList = "created_at")
+})
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder
 public class Order {
 
+    /**
+     * 시퀀스를 50개씩 미리 받아둔다(pooled) → 대량 주문 INSERT 를 JDBC 배치로 보낼 수 있다.
+     * (IDENTITY 는 INSERT 마다 키를 받아와야 해서 배치가 안 됨)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private String productName;
@@ -23,15 +33,28 @@ public class Order {
      * CREATED → PAYMENT_PENDING → INVENTORY_PENDING → COMPLETED
      *                ↓                    ↓
      *          PAYMENT_FAILED      COMPENSATING → CANCELLED
+     *
+     * 병렬 모드(saga.mode=parallel): 결제·재고 요청을 동시에 보내고 결과를 합류
+     * RESERVING → PAYMENT_COMPLETED / PAYMENT_FAILED / INVENTORY_RESERVED / INVENTORY_FAILED (한쪽만 도착)
+     *           → COMPLETED / COMPENSATING → CANCELLED / CANCELLED
      */
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+
     public enum OrderStatus {
         CREATED,
+        RESERVING,
         PAYMENT_PENDING,
         PAYMENT_COMPLETED,
         INVENTORY_PENDING,
+        INVENTORY_RESERVED,
         COMPLETED,
         PAYMENT_FAILED,
         INVENTORY_FAILED,
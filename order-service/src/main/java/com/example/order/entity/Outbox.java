@@ -10,6 +10,9 @@ import java.time.LocalDateTime;
  * 비즈니스 로직(Order 저장)과 이벤트 발행을 하나의 DB 트랜잭션으로 묶기 위해
  * 이벤트를 Kafka로 직접 보내지 않고, 같은 DB의 outbox 테이블에 먼저 저장한다.
  * 별도 스케줄러가 이 테이블을 폴링해서 Kafka로 발행한다.
+ *
+ * 실제 테이블은 created_at RANGE 파티션 + 미발행 행 부분 인덱스 (db/outbox-partitioned.sql)
+ * 오래된 파티션은 OutboxPartitionManager 가 통째로 정리한다.
  */
 @Entity
 @Table(name = "outbox")
@@ -18,8 +21,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Outbox {
 
+    /** 주문과 같이 시퀀스 pooled ID → 주문 INSERT 와 함께 JDBC 배치로 나간다 */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
     private Long id;
 
     /** Kafka 토픽 이름 */
@@ -28,9 +33,12 @@ public class Outbox {
     /** 메시지 키 (주문 ID 등) */
     private String messageKey;
 
-    /** JSON 형태의 이벤트 페이로드 */
-    @Column(columnDefinition = "TEXT")
-    private String payload;
+    /** messageKey 해시로 정해지는 샤드 → 이 샤드의 리스를 가진 인스턴스만 발행 */
+    private int shard;
+
+    /** OrderEventCodec 바이너리 페이로드 (Kafka 로 그대로 나가는 바이트) */
+    @Column(columnDefinition = "BYTEA")
+    private byte[] payload;
 
     /** 발행 여부 */
     private boolean sent;
@@ -0,0 +1,22 @@
+package com.example.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * 살아있는 Outbox 릴레이 인스턴스 목록 (하트비트)
+ * 인스턴스 수로 샤드 공정 분배량을 계산한다.
+ */
+@Entity
+@Table(name = "outbox_relay_member")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class OutboxRelayMember {
+
+    @Id
+    private String owner;
+
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,27 @@
+package com.example.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox 샤드 소유권 (리스)
+ *
+ * 샤드 하나는 한 시점에 한 인스턴스만 발행한다.
+ * 소유자가 expiresAt 전에 갱신하지 못하면(죽으면) 다른 인스턴스가 가져간다.
+ */
+@Entity
+@Table(name = "outbox_shard_lease")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class OutboxShardLease {
+
+    @Id
+    private Integer shardId;
+
+    /** 현재 소유 인스턴스 (없으면 null) */
+    private String owner;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,56 @@
+package com.example.order.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 키별 순서를 지키는 병렬 실행기
+ *
+ * 배치를 키 해시로 lane 에 나누고, lane 하나는 한 스레드가 도착 순서대로 처리한다.
+ * → 같은 주문의 이벤트는 순서대로, 서로 다른 주문은 동시에.
+ *
+ * executeAndWait 는 배치 전체가 끝날 때까지 기다린다.
+ * 리스너가 리턴해야 오프셋이 커밋되므로 at-least-once 가 그대로 유지되고,
+ * 다음 배치는 이전 배치가 끝난 뒤에 시작하므로 배치 사이의 순서도 지켜진다.
+ */
+public class KeyedExecutor {
+
+    private final ExecutorService executor;
+    private final int lanes;
+
+    public KeyedExecutor(String name, int lanes, boolean virtual) {
+        this.lanes = lanes;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = virtual
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory())
+                : Executors.newFixedThreadPool(lanes, r -> new Thread(r, name + "-" + sequence.incrementAndGet()));
+    }
+
+    public <T> void executeAndWait(List<T> items, Function<T, Object> keyOf, Consumer<T> handler) {
+        List<List<T>> byLane = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            byLane.get(Math.floorMod(keyOf.apply(item).hashCode(), lanes)).add(item);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes);
+        for (List<T> lane : byLane) {
+            if (!lane.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> lane.forEach(handler), executor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
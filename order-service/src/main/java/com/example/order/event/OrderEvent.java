@@ -2,6 +2,7 @@ package com.example.order.event;
 
 import lombok.*;
 import java.io.Serializable;
+import java.util.UUID;
 
 /**
  * 서비스 간 주고받는 이벤트 메시지
@@ -12,6 +13,9 @@ import java.io.Serializable;
 @ToString
 public class OrderEvent implements Serializable {
 
+    /** 이벤트 고유 ID - 발행 시점에 찍히고, 받는 쪽은 이걸로 중복 수신을 걸러낸다 */
+    private UUID eventId;
+
     private Long orderId;
     private String productName;
     private int quantity;
@@ -31,6 +35,7 @@ public class OrderEvent implements Serializable {
      * PAYMENT_FAILED    → Payment → Order: "결제 실패했어"
      * INVENTORY_FAILED  → Inventory → Order: "재고 부족이야"
      * PAYMENT_ROLLBACK  → Order → Payment: "결제 취소해줘" (보상 트랜잭션)
+     * INVENTORY_RELEASE → Order → Inventory: "차감한 재고 되돌려줘" (보상 트랜잭션)
      */
     public static final String PAYMENT_REQUEST = "PAYMENT_REQUEST";
     public static final String PAYMENT_SUCCESS = "PAYMENT_SUCCESS";
@@ -39,4 +44,5 @@ public class OrderEvent implements Serializable {
     public static final String INVENTORY_SUCCESS = "INVENTORY_SUCCESS";
     public static final String INVENTORY_FAILED = "INVENTORY_FAILED";
     public static final String PAYMENT_ROLLBACK = "PAYMENT_ROLLBACK";
+    public static final String INVENTORY_RELEASE = "INVENTORY_RELEASE";
 }
@@ -0,0 +1,14 @@
+package com.example.order.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka 값 직렬화: OrderEvent → OrderEventCodec 바이너리
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent data) {
+        return data == null ? null : OrderEventCodec.encode(data);
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.order.event;
 
 import com.example.order.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.order.service.ProcessedEventFilter;
+import com.example.order.service.SagaMetrics;
+import com.example.order.service.SagaStateStore;
+import com.example.order.trace.SagaTracer;
+import com.example.order.trace.SagaTracer.Step;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
 /**
  * Saga 오케스트레이터 역할
  *
@@ -15,6 +25,11 @@ import org.springframework.stereotype.Component;
  *
  * 성공 → 다음 단계 진행
  * 실패 → 보상 트랜잭션 실행
+ *
+ * 같은 응답이 다시 오면 ProcessedEventFilter 가 걸러낸다.
+ * 처리 기록은 SagaStateStore 가 상태 UPDATE 와 같은 트랜잭션에서 남긴다. (상태가 롤백되면 기록도 롤백)
+ * 처리에 실패하면 예외를 그대로 던져서 오프셋을 커밋하지 않는다 → 컨테이너 에러 핸들러가 다시 전달한다.
+ * 상태를 바꾸지 않는 응답(늦게 온 응답 등)은 기록하지 않는다. 다시 와도 상태 가드(expectStatus)에서 무시된다.
  */
 @Component
 @RequiredArgsConstructor
@@ -22,13 +37,60 @@ import org.springframework.stereotype.Component;
 public class OrderSagaListener {
 
     private final OrderService orderService;
-    private final ObjectMapper objectMapper;
+    private final KeyedExecutor sagaKeyedExecutor;
+    private final SagaStateStore sagaStateStore;
+    private final ProcessedEventFilter processedEventFilter;
+    private final SagaMetrics sagaMetrics;
+    private final SagaTracer sagaTracer;
+
+    /** 키별 병렬 모드(saga.listener.keyed-executor.enabled=true)에서는 아래 handleResponses 가 대신 뜬다 */
+    @KafkaListener(topics = "order-response-topic", groupId = "order-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            autoStartup = "#{!${saga.listener.keyed-executor.enabled:false}}")
+    public void handleResponse(OrderEvent event) {
+        if (processedEventFilter.isDuplicate(event.getEventId())) {
+            log.debug("⏭️ 중복 응답 무시: eventId={}, orderId={}", event.getEventId(), event.getOrderId());
+            return;
+        }
+        dispatch(event);
+        // 최종 상태 전이(write-behind)를 오프셋 커밋 전에 DB 에 반영
+        sagaStateStore.flush();
+    }
+
+    /**
+     * 키별 병렬 모드: poll 한 배치를 주문 ID 별 lane 으로 나눠 동시에 처리
+     * 같은 주문의 응답은 도착 순서대로 처리되고, 배치가 다 끝나야 오프셋이 커밋된다.
+     */
+    @KafkaListener(topics = "order-response-topic", groupId = "order-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${saga.listener.keyed-executor.enabled:false}")
+    public void handleResponses(List<OrderEvent> events) {
+        // 디코딩에 실패한 레코드는 ErrorHandlingDeserializer 가 null 로 넘겨준다
+        Set<UUID> seen = new HashSet<>();
+        List<OrderEvent> valid = events.stream()
+                .filter(Objects::nonNull)
+                .filter(event -> event.getEventId() == null || seen.add(event.getEventId()))
+                .filter(event -> !processedEventFilter.isDuplicate(event.getEventId()))
+                .toList();
+        try {
+            sagaKeyedExecutor.executeAndWait(valid, OrderEvent::getOrderId, this::dispatch);
+        } finally {
+            // 배치 전체의 최종 상태 전이를 JDBC 배치 한 번으로 반영
+            // (일부 lane 이 실패해도 성공한 전이는 남긴다 → 배치가 다시 와도 그 응답들은 상태 가드에서 무시)
+            sagaStateStore.flush();
+        }
+    }
+
+    private void dispatch(OrderEvent event) {
+        long start = sagaTracer.start();
+        sagaMetrics.handlerTimer(event.getEventType()).record(() -> handle(event));
+        sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), start);
+    }
 
-    @KafkaListener(topics = "order-response-topic", groupId = "order-group")
-    public void handleResponse(String message) {
+    private void handle(OrderEvent event) {
         try {
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            log.info("📩 응답 수신: type={}, orderId={}", event.getEventType(), event.getOrderId());
+            log.debug("📩 응답 수신: type={}, orderId={}", event.getEventType(), event.getOrderId());
 
             switch (event.getEventType()) {
                 case OrderEvent.PAYMENT_SUCCESS:
@@ -59,8 +121,10 @@ public class OrderSagaListener {
                 default:
                     log.warn("⚠️ 알 수 없는 이벤트 타입: {}", event.getEventType());
             }
-        } catch (Exception e) {
-            log.error("❗ 이벤트 처리 실패: {}", e.getMessage(), e);
+        } catch (RuntimeException e) {
+            log.error("❗ 이벤트 처리 실패 → 재전송 대기: type={}, orderId={}, {}",
+                    event.getEventType(), event.getOrderId(), e.getMessage());
+            throw e;
         }
     }
 }
@@ -0,0 +1,120 @@
+package com.example.order.repository;
+
+import com.example.order.entity.Order;
+import com.example.order.entity.Order.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 주문 목록 조회 (JPA 대신 JdbcTemplate)
+ *
+ * OFFSET 대신 id 키셋(id > 마지막 id) → 몇 번째 페이지든 인덱스에서 바로 시작한다.
+ * 스트리밍은 fetch size 단위 커서로 읽어서 테이블 크기와 상관없이 메모리 일정.
+ * 대신 응답이 끝날 때까지 풀 연결과 트랜잭션을 잡고 있으므로 stream-timeout-seconds 로 수명을 제한한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderQueryRepository {
+
+    private static final RowMapper<Order> ORDER_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return Order.builder()
+                .id(rs.getLong("id"))
+                .productName(rs.getString("product_name"))
+                .quantity(rs.getInt("quantity"))
+                .price(rs.getInt("price"))
+                .status(OrderStatus.valueOf(rs.getString("status")))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.query.stream-fetch-size:1000}")
+    private int streamFetchSize;
+
+    @Value("${order.query.stream-timeout-seconds:60}")
+    private int streamTimeoutSeconds;
+
+    /** 조회 조건 (null 인 항목은 조건에서 빠진다) */
+    public record OrderQuery(OrderStatus status, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /** afterId 다음부터 최대 limit 건 (id 오름차순) */
+    public List<Order> findPage(OrderQuery query, Long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = select(query, afterId, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ORDER_MAPPER, args.toArray());
+    }
+
+    /**
+     * 조건에 맞는 주문을 한 건씩 넘겨준다 (전체를 리스트로 모으지 않음)
+     *
+     * 연결을 잡고 있는 시간은 stream-timeout-seconds 까지:
+     * - 읽기 전용 트랜잭션 타임아웃 → 쿼리 타임아웃으로 걸린다
+     * - 클라이언트가 읽기를 멈추면 커서 fetch 사이가 idle in transaction → Postgres 가 그 시간 뒤 세션을 끊는다
+     * - 느리게라도 계속 읽으면 행을 넘길 때마다 경과 시간을 보고 중단한다
+     */
+    public void stream(OrderQuery query, Consumer<Order> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = select(query, null, args);
+
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(streamFetchSize);
+
+        TransactionTemplate streamTx = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        streamTx.setReadOnly(true);
+        streamTx.setTimeout(streamTimeoutSeconds);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(streamTimeoutSeconds);
+
+        // Postgres 는 트랜잭션 안에서만 커서(fetch size)로 읽는다
+        streamTx.executeWithoutResult(status -> {
+            cursor.execute("SET LOCAL idle_in_transaction_session_timeout = " + TimeUnit.SECONDS.toMillis(streamTimeoutSeconds));
+            cursor.query(sql,
+                    rs -> {
+                        if (System.nanoTime() > deadline) {
+                            throw new QueryTimeoutException("주문 스트리밍 시간 초과 (" + streamTimeoutSeconds + "초)");
+                        }
+                        consumer.accept(ORDER_MAPPER.mapRow(rs, 0));
+                    }, args.toArray());
+        });
+    }
+
+    private String select(OrderQuery query, Long afterId, List<Object> args) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, product_name, quantity, price, status, created_at FROM orders WHERE 1 = 1");
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            args.add(afterId);
+        }
+        if (query.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(query.status().name());
+        }
+        if (query.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(query.from()));
+        }
+        if (query.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(query.to()));
+        }
+        return sql.append(" ORDER BY id").toString();
+    }
+}
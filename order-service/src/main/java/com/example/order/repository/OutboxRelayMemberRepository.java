@@ -0,0 +1,23 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OutboxRelayMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxRelayMemberRepository extends JpaRepository<OutboxRelayMember, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO outbox_relay_member (owner, heartbeat_at) VALUES (:owner, now()) " +
+            "ON CONFLICT (owner) DO UPDATE SET heartbeat_at = now()", nativeQuery = true)
+    int heartbeat(@Param("owner") String owner);
+
+    @Query(value = "SELECT COUNT(*) FROM outbox_relay_member WHERE heartbeat_at > now() - make_interval(secs => :ttlSeconds)",
+            nativeQuery = true)
+    int countAlive(@Param("ttlSeconds") double ttlSeconds);
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox_relay_member WHERE owner = :owner", nativeQuery = true)
+    int leave(@Param("owner") String owner);
+}
@@ -2,9 +2,32 @@ package com.example.order.repository;
 
 import com.example.order.entity.Outbox;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxRepository extends JpaRepository<Outbox, Long> {
-    /** 아직 발행되지 않은 이벤트 조회 (폴링용) */
-    List<Outbox> findBySentFalseOrderByCreatedAtAsc();
+
+    /**
+     * 내가 리스를 가진 샤드의 미발행 이벤트를 최대 limit 건만 선점 (폴링용)
+     *
+     * FOR UPDATE SKIP LOCKED → 다른 트랜잭션이 잡고 있는 행은 건너뛴다.
+     * 백로그가 아무리 쌓여도 한 번에 메모리에 올라오는 건 limit 건뿐.
+     * outbox_shard_lease 를 owner = 나, 만료 전(DB now() 기준) 조건으로 조인 → 메모리의 샤드 목록이 낡았어도
+     * 이미 다른 인스턴스로 넘어간 샤드의 행은 선점하지 않는다.
+     */
+    @Query(value = "SELECT o.* FROM outbox o JOIN outbox_shard_lease l ON l.shard_id = o.shard " +
+            "WHERE o.sent = false AND o.shard IN (:shards) AND l.owner = :owner AND l.expires_at > now() " +
+            "ORDER BY o.id LIMIT :limit FOR UPDATE OF o SKIP LOCKED", nativeQuery = true)
+    List<Outbox> claimPendingBatch(@Param("shards") Collection<Integer> shards, @Param("owner") String owner,
+                                   @Param("limit") int limit);
+
+    /** Kafka ack 를 받은 이벤트만 한 번의 UPDATE 로 발행 완료 처리 */
+    @Modifying
+    @Query("UPDATE Outbox o SET o.sent = true, o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
 }
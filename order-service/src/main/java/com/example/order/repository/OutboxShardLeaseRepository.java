@@ -0,0 +1,44 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OutboxShardLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 시간 비교는 전부 DB now() 기준 → 인스턴스 간 시계 차이에 영향 없음
+ */
+public interface OutboxShardLeaseRepository extends JpaRepository<OutboxShardLease, Integer> {
+
+    /** 샤드 행이 없으면 빈 리스로 생성 */
+    @Modifying
+    @Query(value = "INSERT INTO outbox_shard_lease (shard_id, owner, expires_at) VALUES (:shardId, NULL, now()) " +
+            "ON CONFLICT (shard_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("shardId") int shardId);
+
+    /** 내가 계속 가질 샤드만 만료 시각 연장 */
+    @Modifying
+    @Query(value = "UPDATE outbox_shard_lease SET expires_at = now() + make_interval(secs => :ttlSeconds) " +
+            "WHERE owner = :owner AND shard_id IN (:shardIds)", nativeQuery = true)
+    int renew(@Param("owner") String owner, @Param("shardIds") Collection<Integer> shardIds,
+              @Param("ttlSeconds") double ttlSeconds);
+
+    /** 주인이 없거나 리스가 만료된 샤드 가져오기 (성공 시 1) */
+    @Modifying
+    @Query(value = "UPDATE outbox_shard_lease SET owner = :owner, expires_at = now() + make_interval(secs => :ttlSeconds) " +
+            "WHERE shard_id = :shardId AND (owner IS NULL OR owner = :owner OR expires_at < now())", nativeQuery = true)
+    int tryAcquire(@Param("shardId") int shardId, @Param("owner") String owner,
+                   @Param("ttlSeconds") double ttlSeconds);
+
+    @Query(value = "SELECT shard_id FROM outbox_shard_lease WHERE owner = :owner AND expires_at > now() ORDER BY shard_id",
+            nativeQuery = true)
+    List<Integer> findLiveShardIds(@Param("owner") String owner);
+
+    @Query(value = "SELECT shard_id FROM outbox_shard_lease WHERE owner IS NULL OR expires_at < now() ORDER BY shard_id",
+            nativeQuery = true)
+    List<Integer> findAcquirableShardIds();
+}
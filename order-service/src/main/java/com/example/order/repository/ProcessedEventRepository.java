@@ -0,0 +1,8 @@
+package com.example.order.repository;
+
+import com.example.order.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.UUID;
+
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, UUID> {
+}
@@ -1,16 +1,31 @@
 package com.example.order.service;
 
+import com.example.order.dto.OrderRequest;
 import com.example.order.entity.Order;
 import com.example.order.entity.Order.OrderStatus;
 import com.example.order.entity.Outbox;
 import com.example.order.event.OrderEvent;
+import com.example.order.event.OrderEventCodec;
 import com.example.order.repository.OrderRepository;
 import com.example.order.repository.OutboxRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.order.trace.SagaTracer;
+import com.example.order.trace.SagaTracer.Step;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -19,7 +34,30 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final OutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxShardLeaseManager leaseManager;
+    private final SagaStateStore sagaStateStore;
+    private final TransactionTemplate transactionTemplate;
+    private final SagaTracer sagaTracer;
+
+    /** 병렬 Saga 의 중간 상태 (결제/재고 중 한쪽 결과만 도착) */
+    private static final Set<OrderStatus> PARALLEL_STATES = EnumSet.of(
+            OrderStatus.RESERVING,
+            OrderStatus.PAYMENT_COMPLETED,
+            OrderStatus.PAYMENT_FAILED,
+            OrderStatus.INVENTORY_RESERVED,
+            OrderStatus.INVENTORY_FAILED);
+
+    /** sequential: 결제 → 재고 순서대로 / parallel: 결제·재고 요청을 동시에 보내고 결과를 합류 */
+    @Value("#{'${saga.mode:sequential}' == 'parallel'}")
+    private boolean parallel;
+
+    /** COMPENSATING 타임아웃 시 PAYMENT_ROLLBACK 재전송 최대 횟수 */
+    @Value("${saga.deadline.max-compensation-retries:3}")
+    private int maxCompensationRetries;
+
+    private final Map<Long, Integer> compensationRetries = new ConcurrentHashMap<>();
 
     /**
      * 주문 생성 + Outbox에 결제 요청 이벤트 저장
@@ -36,34 +74,70 @@ public class OrderService {
                 .productName(productName)
                 .quantity(quantity)
                 .price(price)
-                .status(OrderStatus.PAYMENT_PENDING)
+                .status(initialStatus())
                 .build();
         orderRepository.save(order);
-        log.info("✅ 주문 생성: orderId={}, product={}", order.getId(), productName);
+        sagaStateStore.register(order);
+        log.debug("✅ 주문 생성: orderId={}, product={}", order.getId(), productName);
 
         // 2. 결제 요청 이벤트를 Outbox 테이블에 저장 (같은 트랜잭션!)
-        OrderEvent event = OrderEvent.builder()
-                .orderId(order.getId())
-                .productName(productName)
-                .quantity(quantity)
-                .price(price)
-                .eventType(OrderEvent.PAYMENT_REQUEST)
-                .build();
-        saveToOutbox("payment-topic", order.getId().toString(), event);
+        //    병렬 모드면 재고 예약 요청도 같이
+        List<Outbox> outboxes = firstRequests(order);
+        outboxRepository.saveAll(outboxes);
+        wakeUpRelay("payment-topic");
 
         return order;
     }
 
+    /**
+     * 대량 주문 생성 (한 트랜잭션)
+     *
+     * 주문/Outbox 모두 시퀀스 pooled ID 라서 saveAll 이 커밋 시 JDBC 배치 INSERT 로 나간다.
+     * (주문 N건 = 왕복 2N번이 아니라 배치 크기 단위로 묶여서 전송)
+     * 릴레이 깨우기(이벤트 + NOTIFY)도 건마다가 아니라 한 번만.
+     */
+    @Transactional
+    public List<Order> createOrders(List<OrderRequest> requests) {
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            orders.add(Order.builder()
+                    .productName(request.productName())
+                    .quantity(request.quantity())
+                    .price(request.price())
+                    .status(initialStatus())
+                    .build());
+        }
+        orderRepository.saveAll(orders);
+
+        List<Outbox> outboxes = new ArrayList<>(parallel ? orders.size() * 2 : orders.size());
+        for (Order order : orders) {
+            sagaStateStore.register(order);
+            outboxes.addAll(firstRequests(order));
+        }
+        outboxRepository.saveAll(outboxes);
+        wakeUpRelay("payment-topic");
+
+        log.debug("✅ 대량 주문 생성: {}건", orders.size());
+        return orders;
+    }
+
     /**
      * Saga 오케스트레이터: 결제 성공 응답 처리
      * → 다음 단계인 재고 차감 요청
      */
     @Transactional
     public void handlePaymentSuccess(OrderEvent event) {
-        Order order = orderRepository.findById(event.getOrderId()).orElseThrow();
-        order.setStatus(OrderStatus.INVENTORY_PENDING);
-        orderRepository.save(order);
-        log.info("✅ 결제 성공 확인: orderId={} → 재고 차감 요청", event.getOrderId());
+        if (inParallelSaga(event)) {
+            joinPaymentResult(event, true);
+            return;
+        }
+        if (!expectStatus(event, OrderStatus.PAYMENT_PENDING)) {
+            return;
+        }
+        if (!sagaStateStore.transitionNow(event.getOrderId(), OrderStatus.INVENTORY_PENDING, event.getEventId())) {
+            return;
+        }
+        log.debug("✅ 결제 성공 확인: orderId={} → 재고 차감 요청", event.getOrderId());
 
         // 재고 차감 요청 이벤트를 Outbox에 저장
         OrderEvent inventoryEvent = OrderEvent.builder()
@@ -78,24 +152,33 @@ public class OrderService {
 
     /**
      * Saga 오케스트레이터: 재고 차감 성공 → 주문 완료
+     * (Outbox 없는 전이라 write-behind: 리스너가 처리를 끝낸 뒤 모아서 반영)
      */
-    @Transactional
     public void handleInventorySuccess(OrderEvent event) {
-        Order order = orderRepository.findById(event.getOrderId()).orElseThrow();
-        order.setStatus(OrderStatus.COMPLETED);
-        orderRepository.save(order);
-        log.info("🎉 주문 완료! orderId={}", event.getOrderId());
+        if (inParallelSaga(event)) {
+            joinInventoryResult(event, true);
+            return;
+        }
+        if (!expectStatus(event, OrderStatus.INVENTORY_PENDING)) {
+            return;
+        }
+        sagaStateStore.transition(event.getOrderId(), OrderStatus.COMPLETED, event.getEventId());
+        log.debug("🎉 주문 완료! orderId={}", event.getOrderId());
     }
 
     /**
-     * Saga 보상 트랜잭션: 결제 실패 → 주문 취소
+     * Saga 보상 트랜잭션: 결제 실패 → 주문 취소 (write-behind)
      */
-    @Transactional
     public void handlePaymentFailed(OrderEvent event) {
-        Order order = orderRepository.findById(event.getOrderId()).orElseThrow();
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
-        log.info("❌ 결제 실패 → 주문 취소: orderId={}", event.getOrderId());
+        if (inParallelSaga(event)) {
+            joinPaymentResult(event, false);
+            return;
+        }
+        if (!expectStatus(event, OrderStatus.PAYMENT_PENDING)) {
+            return;
+        }
+        sagaStateStore.transition(event.getOrderId(), OrderStatus.CANCELLED, event.getEventId());
+        log.debug("❌ 결제 실패 → 주문 취소: orderId={}", event.getOrderId());
     }
 
     /**
@@ -106,10 +189,17 @@ public class OrderService {
      */
     @Transactional
     public void handleInventoryFailed(OrderEvent event) {
-        Order order = orderRepository.findById(event.getOrderId()).orElseThrow();
-        order.setStatus(OrderStatus.COMPENSATING);
-        orderRepository.save(order);
-        log.info("⚠️ 재고 부족 → 결제 롤백 요청: orderId={}", event.getOrderId());
+        if (inParallelSaga(event)) {
+            joinInventoryResult(event, false);
+            return;
+        }
+        if (!expectStatus(event, OrderStatus.INVENTORY_PENDING)) {
+            return;
+        }
+        if (!sagaStateStore.transitionNow(event.getOrderId(), OrderStatus.COMPENSATING, event.getEventId())) {
+            return;
+        }
+        log.debug("⚠️ 재고 부족 → 결제 롤백 요청: orderId={}", event.getOrderId());
 
         // 결제 취소(보상) 이벤트를 Outbox에 저장
         OrderEvent rollbackEvent = OrderEvent.builder()
@@ -123,29 +213,268 @@ public class OrderService {
     }
 
     /**
-     * 보상 트랜잭션 완료 후 주문 최종 취소
+     * 보상 트랜잭션 완료 후 주문 최종 취소 (write-behind)
      */
-    @Transactional
     public void handleRollbackComplete(OrderEvent event) {
-        Order order = orderRepository.findById(event.getOrderId()).orElseThrow();
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
-        log.info("🔄 결제 롤백 완료 → 주문 최종 취소: orderId={}", event.getOrderId());
+        if (!expectStatus(event, OrderStatus.COMPENSATING)) {
+            return;
+        }
+        compensationRetries.remove(event.getOrderId());
+        sagaStateStore.transition(event.getOrderId(), OrderStatus.CANCELLED, event.getEventId());
+        log.debug("🔄 결제 롤백 완료 → 주문 최종 취소: orderId={}", event.getOrderId());
+    }
+
+    // ──────────────── 병렬 Saga (saga.mode=parallel) ────────────────
+    //
+    //                   재고 성공                         재고 실패
+    //  결제 성공   →  COMPLETED                     →  COMPENSATING + PAYMENT_ROLLBACK
+    //  결제 실패   →  CANCELLED + INVENTORY_RELEASE  →  CANCELLED
+    //
+    // 먼저 온 결과는 중간 상태(PAYMENT_COMPLETED / PAYMENT_FAILED / INVENTORY_RESERVED / INVENTORY_FAILED)로만 기록하고
+    // 두 번째 결과가 오면 위 표대로 마무리한다. 같은 주문의 응답은 같은 파티션이라 순서대로 들어온다.
+    // 중간 상태는 write-behind 로 미루지 않고 그 자리에서 커밋한다. (미뤄두면 그사이 만료된 데드라인이
+    // 아직 RESERVING 인 DB 를 기준으로 판단하고, 중간 상태에 맞는 데드라인도 flush 전까지 걸리지 않는다)
+
+    /** 병렬 Saga 진행 중인 주문인지 (생성 시점의 모드를 따른다 → 모드를 바꿔도 진행 중 주문은 그대로) */
+    private boolean inParallelSaga(OrderEvent event) {
+        return PARALLEL_STATES.contains(sagaStateStore.get(event.getOrderId()).status());
+    }
+
+    private void joinPaymentResult(OrderEvent event, boolean paid) {
+        Long orderId = event.getOrderId();
+        OrderStatus current = sagaStateStore.get(orderId).status();
+        switch (current) {
+            case RESERVING -> {
+                // 재고 결과 대기: 중간 상태는 바로 커밋 (데드라인이 DB 와 같은 상태를 보도록)
+                finishWith(event, paid ? OrderStatus.PAYMENT_COMPLETED : OrderStatus.PAYMENT_FAILED, () -> { });
+                log.debug("💳 병렬 Saga 결제 {}: orderId={} → 재고 결과 대기", paid ? "성공" : "실패", orderId);
+            }
+            case INVENTORY_RESERVED -> {
+                if (paid) {
+                    sagaStateStore.transition(orderId, OrderStatus.COMPLETED, event.getEventId());
+                    log.debug("🎉 주문 완료! (병렬) orderId={}", orderId);
+                } else {
+                    log.debug("❌ 결제 실패 → 예약 재고 복구 + 주문 취소: orderId={}", orderId);
+                    finishWith(event, OrderStatus.CANCELLED, () -> requestInventoryRelease(event));
+                }
+            }
+            case INVENTORY_FAILED -> {
+                if (paid) {
+                    log.debug("⚠️ 재고 부족 → 결제 롤백 요청 (병렬): orderId={}", orderId);
+                    finishWith(event, OrderStatus.COMPENSATING, () -> requestPaymentRollback(event));
+                } else {
+                    sagaStateStore.transition(orderId, OrderStatus.CANCELLED, event.getEventId());
+                    log.debug("❌ 결제/재고 모두 실패 → 주문 취소: orderId={}", orderId);
+                }
+            }
+            default -> log.warn("⚠️ 상태 불일치로 무시: type={}, orderId={}, 현재={}",
+                    event.getEventType(), orderId, current);
+        }
+    }
+
+    private void joinInventoryResult(OrderEvent event, boolean reserved) {
+        Long orderId = event.getOrderId();
+        OrderStatus current = sagaStateStore.get(orderId).status();
+        switch (current) {
+            case RESERVING -> {
+                // 결제 결과 대기: 중간 상태는 바로 커밋 (데드라인이 DB 와 같은 상태를 보도록)
+                finishWith(event, reserved ? OrderStatus.INVENTORY_RESERVED : OrderStatus.INVENTORY_FAILED, () -> { });
+                log.debug("📦 병렬 Saga 재고 {}: orderId={} → 결제 결과 대기", reserved ? "예약" : "부족", orderId);
+            }
+            case PAYMENT_COMPLETED -> {
+                if (reserved) {
+                    sagaStateStore.transition(orderId, OrderStatus.COMPLETED, event.getEventId());
+                    log.debug("🎉 주문 완료! (병렬) orderId={}", orderId);
+                } else {
+                    log.debug("⚠️ 재고 부족 → 결제 롤백 요청 (병렬): orderId={}", orderId);
+                    finishWith(event, OrderStatus.COMPENSATING, () -> requestPaymentRollback(event));
+                }
+            }
+            case PAYMENT_FAILED -> {
+                if (reserved) {
+                    log.debug("❌ 결제 실패 → 예약 재고 복구 + 주문 취소: orderId={}", orderId);
+                    finishWith(event, OrderStatus.CANCELLED, () -> requestInventoryRelease(event));
+                } else {
+                    sagaStateStore.transition(orderId, OrderStatus.CANCELLED, event.getEventId());
+                    log.debug("❌ 결제/재고 모두 실패 → 주문 취소: orderId={}", orderId);
+                }
+            }
+            default -> log.warn("⚠️ 상태 불일치로 무시: type={}, orderId={}, 현재={}",
+                    event.getEventType(), orderId, current);
+        }
+    }
+
+    /** 바로 커밋하는 전이 (보상 이벤트를 내보내면 주문 상태와 Outbox 를 한 트랜잭션으로) */
+    private void finishWith(OrderEvent event, OrderStatus status, Runnable outboxWrites) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (sagaStateStore.transitionNow(event.getOrderId(), status, event.getEventId())) {
+                outboxWrites.run();
+            }
+        });
+    }
+
+    /**
+     * ★ 멈춘 Saga 처리 (SagaDeadlineTracker 데드라인 만료)
+     *
+     * 결제 대기 초과 → 결제 롤백 요청 (결제가 됐든 안 됐든 안전: 같은 키라 요청 뒤에 처리됨)
+     * 재고 대기 초과 → 재고 복구 + 결제 롤백 요청
+     * 보상 대기 초과 → 결제 롤백 재전송, 재시도 한도를 넘으면 그냥 취소 처리
+     * 병렬 Saga 대기 초과 → 성공했을 수 있는 쪽을 모두 되돌림
+     *
+     * 늦게 도착한 응답은 각 핸들러의 상태 확인에서 무시된다.
+     * 아직 flush 안 된 응답 전이가 아니라 DB 에 커밋된 상태를 기준으로 판단한다. (조건부 UPDATE 의 기대 상태와 같게)
+     */
+    @EventListener
+    @Transactional
+    public void handleSagaTimeout(SagaTimeoutEvent timeout) {
+        Long orderId = timeout.orderId();
+        SagaStateStore.SagaState state = sagaStateStore.committed(orderId);
+        OrderEvent event = OrderEvent.builder()
+                .orderId(orderId)
+                .productName(state.productName())
+                .quantity(state.quantity())
+                .price(state.price())
+                .build();
+
+        switch (state.status()) {
+            case PAYMENT_PENDING -> {
+                if (sagaStateStore.compareAndTransition(orderId, OrderStatus.PAYMENT_PENDING, OrderStatus.COMPENSATING)) {
+                    log.warn("⏰ 결제 응답 시간 초과 → 결제 롤백 요청: orderId={}", orderId);
+                    requestPaymentRollback(event);
+                }
+            }
+            case INVENTORY_PENDING -> {
+                if (sagaStateStore.compareAndTransition(orderId, OrderStatus.INVENTORY_PENDING, OrderStatus.COMPENSATING)) {
+                    log.warn("⏰ 재고 응답 시간 초과 → 재고 복구 + 결제 롤백 요청: orderId={}", orderId);
+                    requestInventoryRelease(event);
+                    requestPaymentRollback(event);
+                }
+            }
+            case RESERVING, PAYMENT_COMPLETED, INVENTORY_RESERVED -> {
+                // 병렬 Saga: 어느 쪽이 됐는지 모르거나 한쪽만 성공 → 둘 다 되돌린다 (안 된 쪽은 무시됨)
+                if (sagaStateStore.compareAndTransition(orderId, state.status(), OrderStatus.COMPENSATING)) {
+                    log.warn("⏰ 병렬 Saga 응답 시간 초과({}) → 재고 복구 + 결제 롤백 요청: orderId={}", state.status(), orderId);
+                    requestInventoryRelease(event);
+                    requestPaymentRollback(event);
+                }
+            }
+            case PAYMENT_FAILED -> {
+                if (sagaStateStore.compareAndTransition(orderId, OrderStatus.PAYMENT_FAILED, OrderStatus.CANCELLED)) {
+                    log.warn("⏰ 재고 응답 시간 초과 (결제 실패) → 재고 복구 요청 + 주문 취소: orderId={}", orderId);
+                    requestInventoryRelease(event);
+                }
+            }
+            case INVENTORY_FAILED -> {
+                if (sagaStateStore.compareAndTransition(orderId, OrderStatus.INVENTORY_FAILED, OrderStatus.COMPENSATING)) {
+                    log.warn("⏰ 결제 응답 시간 초과 (재고 실패) → 결제 롤백 요청: orderId={}", orderId);
+                    requestPaymentRollback(event);
+                }
+            }
+            case COMPENSATING -> {
+                int attempt = compensationRetries.merge(orderId, 1, Integer::sum);
+                if (attempt > maxCompensationRetries) {
+                    compensationRetries.remove(orderId);
+                    if (sagaStateStore.compareAndTransition(orderId, OrderStatus.COMPENSATING, OrderStatus.CANCELLED)) {
+                        log.error("🚨 결제 롤백 응답 없음 ({}회 재시도) → 주문 취소, 수동 확인 필요: orderId={}",
+                                maxCompensationRetries, orderId);
+                    }
+                } else if (sagaStateStore.compareAndTransition(orderId, OrderStatus.COMPENSATING, OrderStatus.COMPENSATING)) {
+                    log.warn("⏰ 결제 롤백 응답 시간 초과 → 재전송 ({}/{}): orderId={}",
+                            attempt, maxCompensationRetries, orderId);
+                    requestPaymentRollback(event);
+                }
+            }
+            default -> {
+                // 이미 다음 단계로 넘어감 (경합) → 할 일 없음
+            }
+        }
+    }
+
+    private void requestPaymentRollback(OrderEvent event) {
+        saveToOutbox("payment-topic", event.getOrderId().toString(), OrderEvent.builder()
+                .orderId(event.getOrderId())
+                .productName(event.getProductName())
+                .quantity(event.getQuantity())
+                .price(event.getPrice())
+                .eventType(OrderEvent.PAYMENT_ROLLBACK)
+                .build());
+    }
+
+    private void requestInventoryRelease(OrderEvent event) {
+        saveToOutbox("inventory-topic", event.getOrderId().toString(), OrderEvent.builder()
+                .orderId(event.getOrderId())
+                .productName(event.getProductName())
+                .quantity(event.getQuantity())
+                .price(event.getPrice())
+                .eventType(OrderEvent.INVENTORY_RELEASE)
+                .build());
+    }
+
+    private OrderStatus initialStatus() {
+        return parallel ? OrderStatus.RESERVING : OrderStatus.PAYMENT_PENDING;
+    }
+
+    /** 주문 생성 시 내보낼 첫 요청 (순차: 결제만, 병렬: 결제 + 재고 예약) */
+    private List<Outbox> firstRequests(Order order) {
+        String key = order.getId().toString();
+        Outbox payment = toOutbox("payment-topic", key, firstRequest(order, OrderEvent.PAYMENT_REQUEST));
+        if (!parallel) {
+            return List.of(payment);
+        }
+        return List.of(payment, toOutbox("inventory-topic", key, firstRequest(order, OrderEvent.INVENTORY_REQUEST)));
+    }
+
+    private OrderEvent firstRequest(Order order, String eventType) {
+        return OrderEvent.builder()
+                .orderId(order.getId())
+                .productName(order.getProductName())
+                .quantity(order.getQuantity())
+                .price(order.getPrice())
+                .eventType(eventType)
+                .build();
+    }
+
+    /** 늦게 도착했거나 중복된 응답은 상태가 안 맞으므로 무시 */
+    private boolean expectStatus(OrderEvent event, OrderStatus expected) {
+        OrderStatus current = sagaStateStore.get(event.getOrderId()).status();
+        if (current != expected) {
+            log.warn("⚠️ 상태 불일치로 무시: type={}, orderId={}, 현재={}, 기대={}",
+                    event.getEventType(), event.getOrderId(), current, expected);
+            return false;
+        }
+        return true;
     }
 
     // ──────────────── Outbox 저장 헬퍼 ────────────────
 
     private void saveToOutbox(String topic, String key, OrderEvent event) {
+        outboxRepository.save(toOutbox(topic, key, event));
+        wakeUpRelay(topic);
+        log.debug("📤 Outbox 저장: topic={}, key={}", topic, key);
+    }
+
+    private Outbox toOutbox(String topic, String key, OrderEvent event) {
         try {
+            long start = sagaTracer.start();
+            if (event.getEventId() == null) {
+                event.setEventId(OrderEventCodec.newEventId());
+            }
             Outbox outbox = Outbox.builder()
                     .topic(topic)
                     .messageKey(key)
-                    .payload(objectMapper.writeValueAsString(event))
+                    .shard(leaseManager.shardOf(key))
+                    .payload(OrderEventCodec.encode(event))
                     .build();
-            outboxRepository.save(outbox);
-            log.debug("📤 Outbox 저장: topic={}, key={}", topic, key);
+            sagaTracer.record(event.getOrderId(), Step.OUTBOX_ENQUEUE, event.getEventType(), start);
+            return outbox;
         } catch (Exception e) {
             throw new RuntimeException("Outbox 직렬화 실패", e);
         }
     }
+
+    /** 커밋되는 순간 릴레이를 깨운다 (같은 인스턴스 + NOTIFY 로 다른 인스턴스까지) */
+    private void wakeUpRelay(String topic) {
+        eventPublisher.publishEvent(new OutboxSavedEvent(topic));
+        jdbcTemplate.queryForList("SELECT pg_notify(?, '')", OutboxNotificationListener.CHANNEL);
+    }
 }
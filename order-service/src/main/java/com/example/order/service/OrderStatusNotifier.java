@@ -0,0 +1,208 @@
+package com.example.order.service;
+
+import com.example.order.entity.Order.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 주문 상태 변경 푸시 (SSE)
+ *
+ * 클라이언트가 GET /api/orders/{id} 를 계속 폴링하는 대신 /api/orders/{id}/events 를 열어두면
+ * 상태가 DB 에 반영될 때마다(SagaStateStore flush / 조건부 전이 커밋 후) 바로 받는다.
+ *
+ * - 연결은 서블릿 async 라 스레드를 잡지 않고, 동시 연결 수는 max-connections 로 제한
+ * - 전송은 리스너 스레드가 아니라 전용 sender 스레드에서 (느린 클라이언트가 Saga 처리를 막지 않도록)
+ * - sender 는 주문 ID 로 고른 단일 스레드 lane → 같은 주문의 상태는 전이 순서대로 나간다 (연결 직후 현재 상태 포함)
+ * - sender 큐가 가득 차면 그 주문의 연결을 닫는다 → 클라이언트는 폴링으로 확인
+ * - 최종 상태(COMPLETED / CANCELLED)를 보내면 연결 종료
+ *
+ * 같은 인스턴스에서 처리된 전이만 푸시된다. (응답을 다른 인스턴스가 처리하면 timeout 후 재연결/폴링)
+ */
+@Component
+@Slf4j
+public class OrderStatusNotifier {
+
+    /** 상태 변경 구독 훅 (SSE 외에 부하 테스트 등에서 사용) */
+    @FunctionalInterface
+    public interface Listener {
+        void onStatusChanged(Long orderId, OrderStatus status);
+    }
+
+    /** SSE 로 나가는 데이터 */
+    public record StatusEvent(Long orderId, OrderStatus status) {
+    }
+
+    /** 이 상태를 보내면 더 올 게 없으니 연결을 닫는다 */
+    private static final Set<OrderStatus> TERMINAL = EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Value("${order.sse.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${order.sse.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${order.sse.sender-threads:2}")
+    private int senderThreads;
+
+    @Value("${order.sse.send-queue-size:10000}")
+    private int sendQueueSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /** 주문 ID 별 전송 lane (스레드 하나씩) */
+    private ThreadPoolExecutor[] senders;
+
+    @PostConstruct
+    public void init() {
+        senders = new ThreadPoolExecutor[senderThreads];
+        for (int i = 0; i < senderThreads; i++) {
+            senders[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, sendQueueSize / senderThreads)),
+                    virtualThreads
+                            ? Thread.ofVirtual().name("order-sse-" + i).factory()
+                            : Thread.ofPlatform().name("order-sse-" + i).daemon().factory());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor sender : senders) {
+            sender.shutdownNow();
+        }
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 구독 등록 후 현재 상태를 한 번 보낸다.
+     * 등록을 먼저 해야 조회와 등록 사이의 전이를 놓치지 않는다. (같은 상태가 두 번 갈 수는 있음)
+     * 현재 상태는 그 주문의 sender lane 에서 읽어서 보낸다 → 먼저 줄 선 전이보다 앞서거나 뒤의 전이를 추월하지 않는다.
+     * currentStatus 는 DB 에 커밋된 상태여야 한다. (알림도 커밋 후에만 나가므로)
+     *
+     * @return 연결 수 한도를 넘으면 null
+     */
+    public SseEmitter subscribe(Long orderId, Supplier<OrderStatus> currentStatus) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.compute(orderId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        Runnable cleanup = () -> unsubscribe(orderId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        try {
+            senderOf(orderId).execute(() -> send(orderId, currentStatus.get(), Set.of(emitter)));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ SSE 전송 대기열 초과 → 연결 종료: orderId={}", orderId);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /** 상태가 DB 에 반영됐을 때 호출 (트랜잭션 안이면 커밋 후에 알린다) */
+    public void publish(Long orderId, OrderStatus status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(orderId, status);
+                }
+            });
+        } else {
+            dispatch(orderId, status);
+        }
+    }
+
+    private void dispatch(Long orderId, OrderStatus status) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onStatusChanged(orderId, status);
+            } catch (Exception e) {
+                log.warn("⚠️ 상태 변경 리스너 실패: orderId={}, {}", orderId, e.getMessage());
+            }
+        }
+
+        Set<SseEmitter> emitters = subscribers.get(orderId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        try {
+            senderOf(orderId).execute(() -> send(orderId, status, emitters));
+        } catch (RejectedExecutionException e) {
+            // 전송이 밀렸다 → 기다리게 하지 않고 끊어서 폴링으로 넘긴다
+            log.warn("⚠️ SSE 전송 대기열 초과 → 연결 종료: orderId={}", orderId);
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    private ThreadPoolExecutor senderOf(Long orderId) {
+        return senders[Math.floorMod(orderId.hashCode(), senders.length)];
+    }
+
+    private void send(Long orderId, OrderStatus status, Set<SseEmitter> emitters) {
+        boolean terminal = TERMINAL.contains(status);
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(new StatusEvent(orderId, status)));
+                if (terminal) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void unsubscribe(Long orderId, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.order.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Postgres LISTEN/NOTIFY 로 다른 인스턴스의 Outbox 커밋을 감지
+ *
+ * OrderService 가 outbox 저장 시 pg_notify 를 같은 트랜잭션에서 호출하면
+ * Postgres 가 커밋 시점에 알림을 뿌려준다. (롤백되면 알림도 안 감)
+ * 알림을 받으면 OutboxPublisher 를 깨운다 → DB 폴링 부하 없이 즉시 발행.
+ *
+ * 전용 커넥션 하나를 계속 잡고 있는다. 끊기면 잠시 쉬었다가 다시 LISTEN.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.listen-notify", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxNotificationListener {
+
+    public static final String CHANNEL = "outbox_relay";
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSource dataSource;
+    private final OutboxPublisher outboxPublisher;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = (virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon())
+                .name("outbox-notify-listener")
+                .start(this::listenLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("👂 Outbox NOTIFY 수신 대기: channel={}", CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        outboxPublisher.wakeUp();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("❗ Outbox NOTIFY 연결 끊김, {}ms 후 재연결: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+}
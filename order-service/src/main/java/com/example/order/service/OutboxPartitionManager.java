@@ -0,0 +1,162 @@
+package com.example.order.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Outbox 파티션 관리
+ *
+ * - outbox 는 created_at 기준 RANGE 파티션 테이블 (db/outbox-partitioned.sql)
+ * - 앞으로 쓸 파티션을 premake 개 만큼 미리 만들어 둔다
+ * - retention 보다 오래된 파티션은 미발행 행이 없으면 DETACH 후 DROP (또는 보관용으로 이름만 바꿔 남김)
+ *   → 행 단위 DELETE 없이 O(1) 로 정리, 테이블/인덱스 bloat 도 없음
+ * - outbox_default 에 행이 들어와 있으면(파티션 관리가 밀림) 그 구간은 CREATE ... PARTITION OF 가 실패한다
+ *   → 매번 먼저 점검해서 경보(로그 + outbox.partition.default.rows)를 내고, 해당 구간 파티션을 만들어 행을 옮긴다
+ */
+@Component
+@Slf4j
+public class OutboxPartitionManager {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("outbox_p\\d{8}(\\d{2})?");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 마지막 점검 때 outbox_default 에 있던 행 수 (0 이 아니면 파티션이 제때 안 만들어졌다는 뜻) */
+    private final AtomicLong defaultPartitionRows = new AtomicLong();
+
+    /** 파티션 단위: DAYS 또는 HOURS */
+    @Value("${outbox.partition.granularity:DAYS}")
+    private ChronoUnit granularity;
+
+    /** 미리 만들어 둘 파티션 수 */
+    @Value("${outbox.partition.premake:3}")
+    private int premake;
+
+    /** 이 개수(단위: granularity)보다 오래된 파티션은 정리 */
+    @Value("${outbox.partition.retention:7}")
+    private int retention;
+
+    /** drop: 바로 삭제 / archive: 떼어내서 outbox_archived_* 로 보관 */
+    @Value("${outbox.partition.retention-mode:drop}")
+    private String retentionMode;
+
+    public OutboxPartitionManager(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("outbox.partition.default.rows", defaultPartitionRows, AtomicLong::get)
+                .description("outbox_default 파티션에 떨어진 행 수")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${outbox.partition.maintenance-interval-ms:600000}")
+    public void maintain() {
+        try {
+            drainDefaultPartition();
+            createUpcomingPartitions();
+            removeExpiredPartitions();
+        } catch (Exception e) {
+            log.error("❗ Outbox 파티션 관리 실패: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * outbox_default 에 쌓인 행을 제 파티션으로 옮긴다.
+     * 기본 파티션을 떼어낸 상태에서 구간 파티션을 만들고 행을 다시 넣은 뒤 비워서 붙인다. (한 트랜잭션)
+     * 그동안 outbox INSERT 는 잠깐 막힌다 → 밀렸을 때만 도는 복구 경로
+     */
+    private void drainDefaultPartition() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_default", Long.class);
+        defaultPartitionRows.set(rows == null ? 0 : rows);
+        if (rows == null || rows == 0) {
+            return;
+        }
+        log.error("🚨 outbox_default 에 {}건 → 해당 구간 파티션을 만들고 옮긴다 (파티션 관리 지연 확인 필요)", rows);
+
+        String unit = granularity == ChronoUnit.HOURS ? "hour" : "day";
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE outbox DETACH PARTITION outbox_default");
+            List<Timestamp> ranges = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT date_trunc(?, created_at) FROM outbox_default", Timestamp.class, unit);
+            for (Timestamp from : ranges) {
+                createPartition(from.toLocalDateTime());
+            }
+            int count = jdbcTemplate.update("INSERT INTO outbox SELECT * FROM outbox_default");
+            jdbcTemplate.execute("TRUNCATE outbox_default");
+            jdbcTemplate.execute("ALTER TABLE outbox ATTACH PARTITION outbox_default DEFAULT");
+            return count;
+        });
+        defaultPartitionRows.set(0);
+        log.warn("🛠️ outbox_default → 구간 파티션으로 {}건 이동", moved);
+    }
+
+    private void createUpcomingPartitions() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(granularity);
+        for (int i = 0; i <= premake; i++) {
+            createPartition(start.plus(i, granularity));
+        }
+    }
+
+    private void createPartition(LocalDateTime from) {
+        LocalDateTime to = from.plus(1, granularity);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(from)
+                + " PARTITION OF outbox FOR VALUES FROM ('" + TIMESTAMP.format(from)
+                + "') TO ('" + TIMESTAMP.format(to) + "')");
+    }
+
+    private void removeExpiredPartitions() {
+        String cutoffName = partitionName(LocalDateTime.now().truncatedTo(granularity).minus(retention, granularity));
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'outbox'::regclass ORDER BY c.relname", String.class);
+
+        for (String partition : partitions) {
+            // 같은 단위의 이름은 사전순 == 시간순
+            if (!PARTITION_NAME.matcher(partition).matches()
+                    || partition.length() != cutoffName.length()
+                    || partition.compareTo(cutoffName) >= 0) {
+                continue;
+            }
+
+            // 부분 인덱스(sent = false)만 보면 되므로 싸다
+            Boolean hasPending = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE sent = false)", Boolean.class);
+            if (Boolean.TRUE.equals(hasPending)) {
+                log.warn("⚠️ 미발행 이벤트가 남아있어 파티션 보존: {}", partition);
+                continue;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE outbox DETACH PARTITION " + partition);
+            if ("archive".equalsIgnoreCase(retentionMode)) {
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO "
+                        + partition.replace("outbox_p", "outbox_archived_p"));
+                log.info("🗄️ Outbox 파티션 보관 처리: {}", partition);
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("🧹 Outbox 파티션 삭제: {}", partition);
+            }
+        }
+    }
+
+    private String partitionName(LocalDateTime from) {
+        String pattern = granularity == ChronoUnit.HOURS ? "yyyyMMddHH" : "yyyyMMdd";
+        return "outbox_p" + DateTimeFormatter.ofPattern(pattern).format(from);
+    }
+}
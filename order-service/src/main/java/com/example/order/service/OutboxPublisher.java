@@ -1,17 +1,32 @@
 package com.example.order.service;
 
+import com.example.order.config.AdaptiveKafkaProducer;
 import com.example.order.entity.Outbox;
 import com.example.order.repository.OutboxRepository;
+import com.example.order.trace.SagaTracer;
+import com.example.order.trace.SagaTracer.Step;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 아웃박스 패턴의 핵심 컴포넌트!
@@ -23,6 +38,20 @@ import java.util.List;
  * - 비즈니스 로직에서 직접 Kafka에 보내면, DB는 저장됐는데 Kafka 발행이 실패할 수 있음
  * - Outbox 테이블에 저장하면 DB 트랜잭션으로 보장됨
  * - 이 Publisher가 실패해도 다음 폴링 때 다시 시도 → 결국 발행됨 (at-least-once)
+ *
+ * [배치 처리]
+ * - 한 번에 batch-size 건만 FOR UPDATE SKIP LOCKED 로 선점 → 메모리/트랜잭션 길이가 백로그 크기와 무관
+ * - 페이지 안의 이벤트는 ack 를 기다리지 않고 연달아 send → 파이프라이닝
+ * - ack 가 확인된 이벤트만 한 번의 UPDATE 로 sent 처리 → 유실 없이 at-least-once 유지
+ * - 페이지가 크면 AdaptiveKafkaProducer 가 linger / 압축을 쓰는 BULK 프로듀서로 넘어간다
+ *
+ * [깨우기]
+ * - Outbox 저장 트랜잭션이 커밋되면 즉시 깨어남 (같은 인스턴스: AFTER_COMMIT 이벤트, 다른 인스턴스: LISTEN/NOTIFY)
+ * - 고정 주기 폴링은 알림이 유실됐을 때를 대비한 안전망으로만 남김
+ * - 릴레이는 전용 스레드 하나에서만 돌고, 실행 중 들어온 깨우기는 한 번으로 합쳐진다
+ *
+ * [수평 확장]
+ * - OutboxShardLeaseManager 가 리스를 준 샤드의 행만 선점 → 인스턴스끼리 중복 발행 없음
  */
 @Component
 @EnableScheduling
@@ -31,31 +60,136 @@ import java.util.List;
 public class OutboxPublisher {
 
     private final OutboxRepository outboxRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final AdaptiveKafkaProducer<byte[]> producer;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxShardLeaseManager leaseManager;
+    private final SagaMetrics sagaMetrics;
+    private final SagaTracer sagaTracer;
+
+    /** 한 트랜잭션에서 선점할 최대 이벤트 수 */
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    /** 페이지 하나의 ack 를 기다리는 최대 시간 */
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService relayExecutor;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        // 릴레이는 항상 한 번에 하나만 돈다. 가상 스레드 모드면 ack 대기 동안 캐리어 스레드를 놓아준다.
+        relayExecutor = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name("outbox-relay").factory()
+                : r -> new Thread(r, "outbox-relay"));
+    }
+
+    /** Outbox 저장 트랜잭션 커밋 직후 → 바로 릴레이 */
+    @TransactionalEventListener
+    public void onOutboxSaved(OutboxSavedEvent event) {
+        wakeUp();
+    }
+
+    /** 새 샤드를 넘겨받으면 밀린 이벤트부터 바로 발행 */
+    @EventListener
+    public void onShardsAcquired(OutboxShardsAcquiredEvent event) {
+        wakeUp();
+    }
+
+    /** 알림 유실 대비 안전망 폴링 (기본 30초) */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:30000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * 릴레이 스레드 깨우기
+     * 이미 대기 중인 깨우기가 있으면 합쳐진다 (실행 중이면 끝난 뒤 한 번 더 돈다)
+     */
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            relayExecutor.execute(() -> {
+                wakeUpPending.set(false);
+                try {
+                    publishOutboxMessages();
+                } catch (Exception e) {
+                    log.error("❗ Outbox 릴레이 실패: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
 
-    /** 1초마다 미발행 이벤트 확인 후 Kafka로 발행 */
-    @Scheduled(fixedDelay = 1000)
-    @Transactional
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    /** 미발행 이벤트가 없을 때까지 페이지 단위로 Kafka에 발행 */
     public void publishOutboxMessages() {
-        List<Outbox> pendingMessages = outboxRepository.findBySentFalseOrderByCreatedAtAsc();
+        BatchResult result;
+        do {
+            result = transactionTemplate.execute(status -> publishBatch());
+        } while (result != null && result.claimed() == batchSize && result.acked() == result.claimed());
+    }
 
-        for (Outbox outbox : pendingMessages) {
-            try {
-                // Kafka로 발행
-                kafkaTemplate.send(outbox.getTopic(), outbox.getMessageKey(), outbox.getPayload());
+    /**
+     * 페이지 하나를 선점 → 전송 → ack 확인 → 일괄 sent 처리
+     * 실패한 이벤트는 sent=false 로 남아 다음 폴링 때 다시 시도됨! (아웃박스의 핵심)
+     */
+    private BatchResult publishBatch() {
+        List<Integer> shards = leaseManager.getOwnedShards();
+        if (shards.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        List<Outbox> batch = outboxRepository.claimPendingBatch(shards, leaseManager.getOwner(), batchSize);
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
 
-                // 발행 성공 표시
-                outbox.setSent(true);
-                outbox.setSentAt(LocalDateTime.now());
-                outboxRepository.save(outbox);
+        // 1. ack 를 기다리지 않고 모두 전송 (프로듀서가 알아서 배치로 묶음)
+        producer.beginBatch(batch.size());
+        long sendStart = sagaTracer.start();
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        for (Outbox outbox : batch) {
+            try {
+                futures.add(producer.send(outbox.getTopic(), outbox.getMessageKey(), outbox.getPayload()));
+            } catch (Exception e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
 
-                log.info("📨 Outbox → Kafka 발행 완료: topic={}, key={}",
-                        outbox.getTopic(), outbox.getMessageKey());
+        // 2. ack 확인 - 페이지 전체에 하나의 데드라인
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> ackedIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Outbox outbox = batch.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                ackedIds.add(outbox.getId());
+                sagaMetrics.recordOutboxLag(outbox.getTopic(), outbox.getCreatedAt(), LocalDateTime.now());
+                // 메시지 키 = 주문 ID
+                sagaTracer.record(Long.valueOf(outbox.getMessageKey()), Step.PUBLISH, outbox.getTopic(), sendStart);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception e) {
-                // 실패해도 다음 폴링 때 다시 시도됨! (아웃박스의 핵심)
-                log.error("❗ Kafka 발행 실패, 다음에 재시도: topic={}, error={}",
-                        outbox.getTopic(), e.getMessage());
+                log.error("❗ Kafka 발행 실패, 다음에 재시도: topic={}, key={}, error={}",
+                        outbox.getTopic(), outbox.getMessageKey(), e.getMessage());
             }
         }
+
+        // 3. ack 받은 것만 한 번에 발행 완료 표시
+        if (!ackedIds.isEmpty()) {
+            outboxRepository.markSent(ackedIds, LocalDateTime.now());
+        }
+        log.debug("📨 Outbox → Kafka 발행 완료: {}/{}건", ackedIds.size(), batch.size());
+        return new BatchResult(batch.size(), ackedIds.size());
+    }
+
+    private record BatchResult(int claimed, int acked) {
     }
 }
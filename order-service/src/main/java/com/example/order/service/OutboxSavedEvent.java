@@ -0,0 +1,8 @@
+package com.example.order.service;
+
+/**
+ * Outbox 에 이벤트가 저장됐다는 신호
+ * 트랜잭션 커밋 후(AFTER_COMMIT)에 OutboxPublisher 가 받아서 바로 릴레이한다.
+ */
+public record OutboxSavedEvent(String topic) {
+}
@@ -0,0 +1,149 @@
+package com.example.order.service;
+
+import com.example.order.repository.OutboxRelayMemberRepository;
+import com.example.order.repository.OutboxShardLeaseRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox 샤드 리스 관리 (여러 인스턴스로 수평 확장)
+ *
+ * - outbox 행은 messageKey(주문 ID) 해시로 샤드가 정해진다 → 같은 주문은 항상 같은 샤드
+ * - 샤드 하나는 리스를 가진 인스턴스 하나만 발행 → 중복 발행 없음, 주문별 순서 유지
+ * - 인스턴스마다 ceil(샤드 수 / 살아있는 인스턴스 수) 만큼만 가져간다
+ * - 죽은 인스턴스의 리스는 만료되면 다른 인스턴스가 가져간다
+ * - 몫보다 많이 가진 인스턴스는 남는 샤드의 갱신을 멈춰서 자연스럽게 넘겨준다
+ *   (리스 TTL 을 발행 타임아웃보다 길게 잡아야 넘겨주는 동안 진행 중인 배치가 먼저 끝난다)
+ * - 갱신이 TTL 동안 한 번도 성공하지 못하면 DB 의 리스도 만료됐다고 보고 샤드를 모두 내려놓는다
+ *   (선점 쿼리도 리스 테이블을 조인해서 한 번 더 막는다 → OutboxRepository.claimPendingBatch)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxShardLeaseManager {
+
+    private final OutboxShardLeaseRepository leaseRepository;
+    private final OutboxRelayMemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 전체 샤드 수 (운영 중 변경 불가 - 바꾸면 기존 행의 샤드가 어긋남) */
+    @Getter
+    @Value("${outbox.relay.shard-count:16}")
+    private int shardCount;
+
+    @Value("${outbox.relay.lease-ttl-ms:15000}")
+    private long leaseTtlMs;
+
+    @Getter
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    /** 현재 이 인스턴스가 발행하는 샤드 (릴레이 스레드가 읽음) */
+    private volatile List<Integer> ownedShards = List.of();
+
+    /**
+     * ownedShards 를 믿어도 되는 시각 (System.nanoTime 기준)
+     * 마지막으로 성공한 갱신 트랜잭션을 시작하기 전 시각 + TTL → DB 의 now() + TTL 보다 항상 이르다
+     */
+    private volatile long leaseValidUntil;
+
+    private boolean initialized;
+
+    /** 이 인스턴스가 발행할 샤드 (마지막 갱신 성공 후 TTL 이 지났으면 빈 목록) */
+    public List<Integer> getOwnedShards() {
+        return System.nanoTime() - leaseValidUntil < 0 ? ownedShards : List.of();
+    }
+
+    /** 메시지 키 → 샤드 번호 (String.hashCode 는 JVM 간에 동일) */
+    public int shardOf(String messageKey) {
+        return Math.floorMod(messageKey.hashCode(), shardCount);
+    }
+
+    /** 하트비트 + 리스 갱신 + 재분배 */
+    @Scheduled(fixedDelayString = "${outbox.relay.lease-heartbeat-ms:3000}")
+    public void rebalance() {
+        long attemptedAt = System.nanoTime();
+        try {
+            List<Integer> previous = getOwnedShards();
+            List<Integer> current = transactionTemplate.execute(status -> doRebalance());
+            ownedShards = current;
+            leaseValidUntil = attemptedAt + TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+
+            if (!current.equals(previous)) {
+                log.info("🔀 Outbox 샤드 재분배: owner={}, shards={}", owner, current);
+                if (current.stream().anyMatch(shard -> !previous.contains(shard))) {
+                    // 새로 받은 샤드에 밀린 이벤트가 있을 수 있으니 바로 발행
+                    eventPublisher.publishEvent(new OutboxShardsAcquiredEvent(current));
+                }
+            }
+        } catch (Exception e) {
+            // 갱신 실패가 이어지면 리스가 만료되고 다른 인스턴스가 가져간다 → 그 전에 내려놓아야 한 샤드를 둘이 발행하지 않음
+            log.error("❗ Outbox 샤드 리스 갱신 실패: {}", e.getMessage());
+            if (!ownedShards.isEmpty() && System.nanoTime() - leaseValidUntil >= 0) {
+                log.warn("🔀 Outbox 샤드 리스 만료 (TTL 동안 갱신 실패) → 샤드 내려놓음: owner={}, shards={}", owner, ownedShards);
+                ownedShards = List.of();
+            }
+        }
+    }
+
+    private List<Integer> doRebalance() {
+        double ttlSeconds = leaseTtlMs / 1000.0;
+        if (!initialized) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                leaseRepository.insertIfAbsent(shard);
+            }
+            initialized = true;
+        }
+
+        memberRepository.heartbeat(owner);
+        int alive = Math.max(1, memberRepository.countAlive(ttlSeconds));
+        int fairShare = (shardCount + alive - 1) / alive;
+
+        // 1. 몫만큼만 갱신 - 나머지는 만료되도록 놔둬서 넘겨준다
+        List<Integer> owned = new ArrayList<>(leaseRepository.findLiveShardIds(owner));
+        if (owned.size() > fairShare) {
+            owned = new ArrayList<>(owned.subList(0, fairShare));
+        }
+        if (!owned.isEmpty()) {
+            leaseRepository.renew(owner, owned, ttlSeconds);
+        }
+
+        // 2. 몫이 모자라면 빈 샤드 / 만료된 샤드 가져오기
+        if (owned.size() < fairShare) {
+            for (Integer shard : leaseRepository.findAcquirableShardIds()) {
+                if (owned.size() >= fairShare) {
+                    break;
+                }
+                if (leaseRepository.tryAcquire(shard, owner, ttlSeconds) == 1) {
+                    owned.add(shard);
+                }
+            }
+        }
+        owned.sort(null);
+        return List.copyOf(owned);
+    }
+
+    @PreDestroy
+    public void leave() {
+        ownedShards = List.of();
+        try {
+            transactionTemplate.executeWithoutResult(status -> memberRepository.leave(owner));
+        } catch (Exception e) {
+            log.warn("Outbox 릴레이 멤버 제거 실패: {}", e.getMessage());
+        }
+    }
+}
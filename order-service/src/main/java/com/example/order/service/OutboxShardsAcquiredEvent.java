@@ -0,0 +1,9 @@
+package com.example.order.service;
+
+import java.util.List;
+
+/**
+ * 이 인스턴스가 새 Outbox 샤드의 리스를 받았다는 신호
+ */
+public record OutboxShardsAcquiredEvent(List<Integer> ownedShards) {
+}
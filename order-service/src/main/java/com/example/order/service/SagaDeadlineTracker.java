@@ -0,0 +1,133 @@
+package com.example.order.service;
+
+import com.example.order.entity.Order.OrderStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 멈춘 Saga 감지 (주문별 데드라인)
+ *
+ * 하위 서비스가 메시지를 잃어버리면 주문이 *_PENDING / COMPENSATING 에서 영원히 멈춘다.
+ * orders 테이블을 주기적으로 스캔하는 대신, 진행 중 주문마다 메모리 타이밍 휠에 데드라인을 걸어둔다.
+ *
+ * - 주문 생성 / 상태 전이 때마다 데드라인 재설정, 최종 상태면 취소 (SagaStateStore 가 호출)
+ * - 만료되면 SagaTimeoutEvent 발행 → OrderService 가 Outbox 로 재시도 / 보상
+ * - 재시작 시 진행 중 주문을 DB 에서 한 번 읽어 휠을 다시 채운다
+ * - 만료 처리를 넘기지 못하면(예: 실행기 거부) saga.deadline.expire.failures 가 오른다 → 그 주문은 데드라인을 놓친 것
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaDeadlineTracker {
+
+    /** 데드라인을 걸어둘 (진행 중) 상태 */
+    public static final Set<OrderStatus> IN_FLIGHT = EnumSet.of(
+            OrderStatus.PAYMENT_PENDING,
+            OrderStatus.INVENTORY_PENDING,
+            OrderStatus.COMPENSATING,
+            // 병렬 Saga
+            OrderStatus.RESERVING,
+            OrderStatus.PAYMENT_COMPLETED,
+            OrderStatus.PAYMENT_FAILED,
+            OrderStatus.INVENTORY_RESERVED,
+            OrderStatus.INVENTORY_FAILED);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${saga.deadline.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${saga.deadline.payment-timeout-ms:30000}")
+    private long paymentTimeoutMs;
+
+    @Value("${saga.deadline.inventory-timeout-ms:30000}")
+    private long inventoryTimeoutMs;
+
+    @Value("${saga.deadline.compensation-timeout-ms:30000}")
+    private long compensationTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private TimingWheel wheel;
+    private ExecutorService timeoutExecutor;
+
+    @PostConstruct
+    public void start() {
+        // 만료 처리(DB/Outbox)는 별도 스레드에서 → 휠은 계속 정확하게 돈다
+        timeoutExecutor = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name("saga-timeout").factory()
+                : r -> new Thread(r, "saga-timeout"));
+        wheel = new TimingWheel("saga-deadline-wheel", tickMs, 9, 4, virtualThreads,
+                orderId -> timeoutExecutor.execute(() -> eventPublisher.publishEvent(new SagaTimeoutEvent(orderId))));
+        FunctionCounter.builder("saga.deadline.expire.failures", wheel, TimingWheel::expireFailures)
+                .description("만료 처리를 넘기지 못한 Saga 데드라인 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        timeoutExecutor.shutdown();
+    }
+
+    /** 상태에 맞는 데드라인 설정 (최종 상태면 취소) */
+    public void arm(Long orderId, OrderStatus status) {
+        long timeoutMs = switch (status) {
+            case PAYMENT_PENDING, INVENTORY_RESERVED, INVENTORY_FAILED -> paymentTimeoutMs;
+            case INVENTORY_PENDING, PAYMENT_COMPLETED, PAYMENT_FAILED -> inventoryTimeoutMs;
+            case RESERVING -> Math.max(paymentTimeoutMs, inventoryTimeoutMs);
+            case COMPENSATING -> compensationTimeoutMs;
+            default -> -1;
+        };
+        if (timeoutMs > 0) {
+            wheel.schedule(orderId, timeoutMs);
+        } else {
+            wheel.cancel(orderId);
+        }
+    }
+
+    public int pendingTimers() {
+        return wheel.size();
+    }
+
+    /** 재시작 시 진행 중 주문의 데드라인 복구 (fetch size 로 나눠 읽어서 주문이 많아도 메모리 일정) */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(1000);
+        AtomicLong count = new AtomicLong();
+
+        // Postgres 는 트랜잭션 안에서만 커서(fetch size)로 읽는다
+        String inFlight = IN_FLIGHT.stream().map(s -> "'" + s.name() + "'").collect(Collectors.joining(", "));
+        transactionTemplate.executeWithoutResult(status -> cursor.query(
+                "SELECT id, status FROM orders WHERE status IN (" + inFlight + ")",
+                rs -> {
+                    arm(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)));
+                    count.incrementAndGet();
+                }));
+        log.info("⏱️ Saga 데드라인 복구: {}건", count.get());
+    }
+}
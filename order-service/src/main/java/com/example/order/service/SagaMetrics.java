@@ -0,0 +1,108 @@
+package com.example.order.service;
+
+import com.example.order.entity.Order.OrderStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saga / Outbox 메트릭 (/actuator/prometheus)
+ *
+ * - outbox.backlog        : 미발행 Outbox 건수 (게이지, 주기적으로 갱신 → 스크레이프가 DB 를 치지 않음)
+ * - outbox.lag            : Outbox 저장(createdAt) → Kafka ack(sentAt) 시간, 토픽별
+ * - saga.handler          : 응답 이벤트 처리 시간, 이벤트 타입별
+ * - saga.duration         : 주문 생성 → COMPLETED / CANCELLED 까지 걸린 시간
+ *
+ * 타이머는 태그 조합별로 한 번만 만들어 두고 재사용한다.
+ */
+@Component
+@Slf4j
+public class SagaMetrics {
+
+    private final MeterRegistry registry;
+    private final JdbcTemplate jdbcTemplate;
+    private final SagaStateStore sagaStateStore;
+
+    private final AtomicLong outboxBacklog = new AtomicLong();
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> lagTimers = new ConcurrentHashMap<>();
+    private final Timer completedTimer;
+    private final Timer cancelledTimer;
+
+    public SagaMetrics(MeterRegistry registry,
+                       JdbcTemplate jdbcTemplate,
+                       SagaStateStore sagaStateStore,
+                       OrderStatusNotifier statusNotifier) {
+        this.registry = registry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sagaStateStore = sagaStateStore;
+
+        Gauge.builder("outbox.backlog", outboxBacklog, AtomicLong::get)
+                .description("미발행 Outbox 이벤트 수")
+                .register(registry);
+        this.completedTimer = sagaDuration("completed");
+        this.cancelledTimer = sagaDuration("cancelled");
+
+        // DB 에 반영된 전이만 들어온다 → 최종 상태면 전체 소요 시간 기록
+        statusNotifier.addListener(this::onStatusChanged);
+    }
+
+    /** 응답 이벤트 처리 시간 타이머 */
+    public Timer handlerTimer(String eventType) {
+        return handlerTimers.computeIfAbsent(eventType, type -> Timer.builder("saga.handler")
+                .description("Saga 응답 이벤트 처리 시간")
+                .tag("type", type)
+                .register(registry));
+    }
+
+    /** Outbox 저장 → Kafka ack 까지 걸린 시간 */
+    public void recordOutboxLag(String topic, LocalDateTime createdAt, LocalDateTime sentAt) {
+        if (createdAt == null) {
+            return;
+        }
+        lagTimers.computeIfAbsent(topic, t -> Timer.builder("outbox.lag")
+                        .description("Outbox 저장부터 Kafka ack 까지 걸린 시간")
+                        .tag("topic", t)
+                        .register(registry))
+                .record(Duration.between(createdAt, sentAt));
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.outbox.backlog-refresh-ms:5000}")
+    public void refreshOutboxBacklog() {
+        // sent = false 부분 인덱스만 읽는다
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM outbox WHERE sent = false", Long.class);
+        outboxBacklog.set(count != null ? count : 0);
+    }
+
+    private void onStatusChanged(Long orderId, OrderStatus status) {
+        Timer timer = switch (status) {
+            case COMPLETED -> completedTimer;
+            case CANCELLED -> cancelledTimer;
+            default -> null;
+        };
+        if (timer == null) {
+            return;
+        }
+        LocalDateTime createdAt = sagaStateStore.get(orderId).createdAt();
+        if (createdAt != null) {
+            timer.record(Duration.between(createdAt, LocalDateTime.now()));
+        }
+    }
+
+    private Timer sagaDuration(String outcome) {
+        return Timer.builder("saga.duration")
+                .description("주문 생성부터 최종 상태까지 걸린 시간")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
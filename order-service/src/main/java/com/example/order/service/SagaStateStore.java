@@ -0,0 +1,271 @@
+package com.example.order.service;
+
+import com.example.order.entity.Order;
+import com.example.order.entity.Order.OrderStatus;
+import com.example.order.repository.OrderRepository;
+import com.example.order.trace.SagaTracer;
+import com.example.order.trace.SagaTracer.Step;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Saga 상태 캐시 + write-behind
+ *
+ * - 진행 중인 주문의 상태를 메모리(LRU, 최대 max-size)에 들고 있어서 전이할 때 DB 를 다시 읽지 않는다
+ * - cache 에는 커밋된 상태만 둔다. 아직 DB 에 안 나간 write-behind 전이는 pending 에 따로 두고 get() 이 겹쳐 보여준다
+ * - write-behind 전이(transition)는 pending 에 모였다가 flush 때 UPDATE 한 번의 JDBC 배치로 나간다 (같은 주문은 마지막 상태만)
+ * - Outbox 를 쓰는 전이는 transitionNow 로 그 트랜잭션 안에서 바로 UPDATE → 주문 상태와 다음 이벤트가 함께 커밋
+ * - 트랜잭션 안의 변경(등록 / transitionNow / 조건부 전이)은 커밋된 뒤에야 cache / pending / 데드라인에 반영한다
+ *   → 롤백되면 메모리도 DB 와 같은 상태로 남아서, 재전송된 응답이 상태 가드에 막히지 않는다
+ * - 모든 UPDATE 는 전이 전 상태를 조건으로 건다 (WHERE status = 기대 상태)
+ *   → 타임아웃이 먼저 COMPENSATING 으로 바꿨으면 밀려 있던 COMPLETED 가 덮어쓰지 못한다
+ *   → 경합에서 지면 DB 상태를 다시 읽어 캐시를 고치고 그 상태로 데드라인을 다시 건다
+ * - 커밋 후 SagaDeadlineTracker 에 데드라인을 다시 건다
+ * - 전이를 일으킨 응답의 eventId 는 상태 UPDATE 와 같은 트랜잭션에서 processed_events 에 기록한다
+ *   → 상태가 롤백되면 처리 기록도 같이 롤백돼서 재전송된 응답이 다시 처리된다
+ * - DB 에 반영된 전이는 OrderStatusNotifier 로 알리고, SagaTracer 에 DB_WRITE 단계로 남긴다
+ */
+@Component
+@Slf4j
+public class SagaStateStore {
+
+    public record SagaState(Long orderId, OrderStatus status, String productName, int quantity, int price,
+                            LocalDateTime createdAt) {
+
+        SagaState withStatus(OrderStatus newStatus) {
+            return new SagaState(orderId, newStatus, productName, quantity, price, createdAt);
+        }
+    }
+
+    /**
+     * 아직 DB 에 안 나간 전이
+     * expected 는 첫 전이 때 커밋돼 있던 상태 (flush 의 UPDATE 조건), eventIds 는 이 전이를 일으킨 응답들
+     */
+    private record Pending(OrderStatus expected, OrderStatus status, List<UUID> eventIds) {
+
+        Pending then(Pending next) {
+            return new Pending(expected, next.status(), Stream.concat(eventIds.stream(), next.eventIds().stream()).toList());
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SagaDeadlineTracker deadlineTracker;
+    private final OrderStatusNotifier statusNotifier;
+    private final SagaTracer sagaTracer;
+    private final ProcessedEventFilter processedEventFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, SagaState> cache;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    public SagaStateStore(OrderRepository orderRepository,
+                          JdbcTemplate jdbcTemplate,
+                          SagaDeadlineTracker deadlineTracker,
+                          OrderStatusNotifier statusNotifier,
+                          SagaTracer sagaTracer,
+                          ProcessedEventFilter processedEventFilter,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${saga.state-cache.max-size:100000}") int maxSize) {
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.deadlineTracker = deadlineTracker;
+        this.statusNotifier = statusNotifier;
+        this.sagaTracer = sagaTracer;
+        this.processedEventFilter = processedEventFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SagaState> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /** 방금 만든 주문을 캐시에 등록 (주문 생성 트랜잭션이 커밋된 뒤) */
+    public void register(Order order) {
+        SagaState state = new SagaState(order.getId(), order.getStatus(),
+                order.getProductName(), order.getQuantity(), order.getPrice(), order.getCreatedAt());
+        afterCommit(() -> {
+            cache.put(state.orderId(), state);
+            deadlineTracker.arm(state.orderId(), state.status());
+        });
+    }
+
+    /** 현재 상태 (아직 flush 안 된 write-behind 전이 포함). 캐시에 없을 때만 DB 에서 읽는다 */
+    public SagaState get(Long orderId) {
+        SagaState state = committed(orderId);
+        Pending unflushed = pending.get(orderId);
+        return unflushed == null ? state : state.withStatus(unflushed.status());
+    }
+
+    /** DB 에 커밋된 상태 */
+    public SagaState committed(Long orderId) {
+        SagaState state = cache.get(orderId);
+        if (state != null) {
+            return state;
+        }
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        state = new SagaState(orderId, order.getStatus(), order.getProductName(), order.getQuantity(), order.getPrice(),
+                order.getCreatedAt());
+        cache.put(orderId, state);
+        return state;
+    }
+
+    /** write-behind 전이: pending 에만 쌓고 DB 쓰기는 flush 로 미룬다 (트랜잭션 밖, 리스너 스레드에서) */
+    public void transition(Long orderId, OrderStatus status, UUID eventId) {
+        OrderStatus expected = committed(orderId).status();
+        List<UUID> eventIds = eventId == null ? List.of() : List.of(eventId);
+        pending.merge(orderId, new Pending(expected, status, eventIds), Pending::then);
+    }
+
+    /**
+     * 즉시 전이: 호출한 트랜잭션 안에서 커밋된 상태를 조건으로 UPDATE (Outbox / 처리 기록과 함께 커밋)
+     * 메모리 반영과 데드라인 재설정은 커밋 후
+     *
+     * @return 경합(타임아웃 처리 등)에 져서 전이하지 못했으면 false → 호출한 쪽은 Outbox 를 쓰지 않는다
+     */
+    public boolean transitionNow(Long orderId, OrderStatus status, UUID eventId) {
+        OrderStatus expected = committed(orderId).status();
+        long start = sagaTracer.start();
+        int updated = jdbcTemplate.update("UPDATE orders SET status = ? WHERE id = ? AND status = ?",
+                status.name(), orderId, expected.name());
+        if (updated == 0) {
+            pending.remove(orderId);
+            reload(orderId, expected);
+            return false;
+        }
+        // 이 주문에 밀려 있던 write-behind 전이는 이 UPDATE 가 덮어쓰므로 그 응답들도 같이 기록
+        Pending unflushed = pending.get(orderId);
+        List<UUID> eventIds = new ArrayList<>(unflushed == null ? List.of() : unflushed.eventIds());
+        eventIds.add(eventId);
+        processedEventFilter.markProcessed(eventIds);
+        statusNotifier.publish(orderId, status);
+        afterCommit(() -> {
+            pending.remove(orderId);
+            applyCommitted(orderId, status);
+            sagaTracer.record(orderId, Step.DB_WRITE, status.name(), start);
+        });
+        return true;
+    }
+
+    /**
+     * 현재 상태가 expected 일 때만 전이하고 즉시 반영 (타임아웃 처리용)
+     * 응답 리스너와 동시에 같은 주문을 건드려도 DB 조건부 UPDATE 로 한쪽만 이긴다.
+     * 아직 flush 안 된 write-behind 전이는 보지 않는다 (이기면 그 전이는 flush 때 조건이 안 맞아 버려진다)
+     *
+     * @return 전이했으면 true
+     */
+    public boolean compareAndTransition(Long orderId, OrderStatus expected, OrderStatus status) {
+        if (committed(orderId).status() != expected) {
+            return false;
+        }
+        long start = sagaTracer.start();
+        int updated = jdbcTemplate.update("UPDATE orders SET status = ? WHERE id = ? AND status = ?",
+                status.name(), orderId, expected.name());
+        if (updated == 0) {
+            // 캐시가 DB 보다 뒤처져 있었다 → 실제 상태로 데드라인을 다시 건다 (안 그러면 이 주문은 다시 안 깨어난다)
+            reload(orderId, expected);
+            return false;
+        }
+        statusNotifier.publish(orderId, status);
+        afterCommit(() -> {
+            applyCommitted(orderId, status);
+            sagaTracer.record(orderId, Step.DB_WRITE, status.name(), start);
+        });
+        return true;
+    }
+
+    /** 쌓인 상태 변경을 UPDATE 한 번의 JDBC 배치로 반영 (처리 기록과 한 트랜잭션) */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Pending>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+
+        long start = sagaTracer.start();
+        int[][] counts = transactionTemplate.execute(tx -> {
+            int[][] updated = jdbcTemplate.batchUpdate("UPDATE orders SET status = ? WHERE id = ? AND status = ?",
+                    batch, batch.size(), (ps, entry) -> {
+                        ps.setString(1, entry.getValue().status().name());
+                        ps.setLong(2, entry.getKey());
+                        ps.setString(3, entry.getValue().expected().name());
+                    });
+            // 반영된 전이의 응답만 처리 완료로 기록 (경합에서 진 전이의 응답은 다시 와도 상태 가드가 막는다)
+            List<UUID> applied = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (updated[0][i] != 0) {
+                    applied.addAll(batch.get(i).getValue().eventIds());
+                }
+            }
+            processedEventFilter.markProcessed(applied);
+            return updated;
+        });
+
+        // flush 중에 새로 바뀐 상태는 지우지 않는다 (다음 flush 때 반영)
+        int conflicts = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Long orderId = batch.get(i).getKey();
+            Pending change = batch.get(i).getValue();
+            pending.remove(orderId, change);
+            if (counts[0][i] == 0) {
+                // 그사이 타임아웃 처리 등이 먼저 바꿨다 → 이 전이는 버린다
+                conflicts++;
+                reload(orderId, change.expected());
+                continue;
+            }
+            applyCommitted(orderId, change.status());
+            statusNotifier.publish(orderId, change.status());
+            sagaTracer.record(orderId, Step.DB_WRITE, change.status().name(), start);
+        }
+        if (conflicts > 0) {
+            log.warn("⚠️ Saga 상태 경합으로 버린 전이: {}건", conflicts);
+        }
+        log.debug("💾 Saga 상태 일괄 반영: {}건", batch.size() - conflicts);
+    }
+
+    /** 조건부 UPDATE 에서 졌을 때: DB 의 실제 상태로 캐시와 데드라인을 맞춘다 */
+    private void reload(Long orderId, OrderStatus expected) {
+        String status = jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+        OrderStatus actual = OrderStatus.valueOf(status);
+        log.warn("⚠️ Saga 상태 경합: orderId={}, 기대={}, 실제={}", orderId, expected, actual);
+        applyCommitted(orderId, actual);
+    }
+
+    /** DB 에 커밋된 전이를 캐시 / 데드라인에 반영 (구독자 알림은 OrderStatusNotifier 가 알아서 커밋 후에) */
+    private void applyCommitted(Long orderId, OrderStatus status) {
+        cache.computeIfPresent(orderId, (id, state) -> state.withStatus(status));
+        deadlineTracker.arm(orderId, status);
+    }
+
+    /** 트랜잭션 안이면 커밋된 뒤에, 아니면 바로 실행 (롤백되면 버린다) */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
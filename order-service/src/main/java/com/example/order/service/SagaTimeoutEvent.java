@@ -0,0 +1,7 @@
+package com.example.order.service;
+
+/**
+ * 주문이 데드라인 안에 다음 상태로 넘어가지 못했다는 신호 (SagaDeadlineTracker → OrderService)
+ */
+public record SagaTimeoutEvent(Long orderId) {
+}
@@ -0,0 +1,239 @@
+package com.example.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * 계층형 타이밍 휠 (long 키 → 데드라인)
+ *
+ * - 레벨마다 2^bits 개의 슬롯, 레벨 0 슬롯 하나 = tick 하나
+ * - 가까운 데드라인은 아래 레벨, 먼 데드라인은 위 레벨에 들어가 있다가
+ *   아래 레벨이 한 바퀴 돌 때마다 한 단계씩 내려온다 (cascade)
+ * - 등록/취소는 O(1): 슬롯은 이중 연결 리스트, 키 → 노드는 해시맵
+ * - 만료된 키는 락 밖에서 콜백으로 넘긴다 (콜백이 던지면 error 로그 + expireFailures 를 올리고 다음 키로)
+ *
+ * tick 100ms, 슬롯 512개, 4레벨이면 약 0.1초 ~ 수백 일 범위를 커버한다.
+ */
+@Slf4j
+public class TimingWheel {
+
+    private static final class Node {
+        final long key;
+        long deadline;
+        Node prev;
+        Node next;
+        int level;
+        int slot;
+
+        Node(long key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Node[][] heads;
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongConsumer onExpire;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong expireFailures = new AtomicLong();
+
+    /** 마지막으로 처리한 tick */
+    private long currentTick;
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public TimingWheel(String name, long tickMs, int bits, int levels, boolean virtual, LongConsumer onExpire) {
+        this(tickMs, bits, levels, onExpire);
+        this.worker = (virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon()).name(name).start(this::run);
+    }
+
+    /** 워커 스레드 없이 만든다 → advanceTo 로 직접 돌린다 (테스트용) */
+    TimingWheel(long tickMs, int bits, int levels, LongConsumer onExpire) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.heads = new Node[levels][1 << bits];
+        this.onExpire = onExpire;
+    }
+
+    /** key 의 데드라인을 delayMs 뒤로 (이미 있으면 교체) */
+    public void schedule(long key, long delayMs) {
+        long ticks = Math.max(1, (TimeUnit.MILLISECONDS.toNanos(delayMs) + tickNanos - 1) / tickNanos);
+        lock.lock();
+        try {
+            Node node = nodes.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+            node = new Node(key, currentTick + ticks);
+            nodes.put(key, node);
+            place(node, currentTick + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(long key) {
+        lock.lock();
+        try {
+            Node node = nodes.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 만료 콜백이 예외를 던진 횟수 (그 키의 데드라인은 처리되지 않은 것) */
+    public long expireFailures() {
+        return expireFailures.get();
+    }
+
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /** targetTick 까지 돌리고 만료된 키를 콜백으로 넘긴다 (워커 스레드가 매 tick 부름) */
+    void advanceTo(long targetTick) {
+        List<Long> expired;
+        lock.lock();
+        try {
+            expired = advance(targetTick);
+        } finally {
+            lock.unlock();
+        }
+        for (long key : expired) {
+            try {
+                onExpire.accept(key);
+            } catch (RuntimeException e) {
+                // 콜백 하나의 실패가 휠을 멈추게 하지 않는다 (대신 조용히 사라지지 않게 남긴다)
+                expireFailures.incrementAndGet();
+                log.error("❗ 타이밍 휠 만료 처리 실패: key={}, {}", key, e.getMessage(), e);
+            }
+        }
+    }
+
+    // ──────────────── 내부 ────────────────
+
+    /**
+     * 데드라인에 맞는 레벨 / 슬롯에 넣는다 (earliest 보다 이르면 earliest 로)
+     * 등록은 currentTick + 1 (현재 tick 은 이미 처리됨), cascade 는 currentTick
+     * (cascade 는 레벨 0 슬롯을 처리하기 직전에 돌기 때문에, 레벨 경계에 걸린 데드라인도 이번 tick 에 만료된다)
+     */
+    private void place(Node node, long earliest) {
+        long deadline = Math.max(node.deadline, earliest);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long slotTick = level == levels - 1
+                ? Math.min(deadline, currentTick + (1L << (bits * levels)) - 1)  // 범위 밖이면 맨 위 레벨에서 대기
+                : deadline;
+        link(node, level, (int) ((slotTick >>> (bits * level)) & mask));
+    }
+
+    private void link(Node node, int level, int slot) {
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = heads[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        heads[level][slot] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            heads[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /** 위 레벨 슬롯 하나를 통째로 떼어서 아래 레벨로 다시 배치 */
+    private void cascade(int level, int slot) {
+        Node node = heads[level][slot];
+        heads[level][slot] = null;
+        while (node != null) {
+            Node next = node.next;
+            node.prev = null;
+            node.next = null;
+            place(node, currentTick);
+            node = next;
+        }
+    }
+
+    private List<Long> advance(long targetTick) {
+        List<Long> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            long tick = ++currentTick;
+            for (int level = 1; level < levels; level++) {
+                if ((tick & ((1L << (bits * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level, (int) ((tick >>> (bits * level)) & mask));
+            }
+
+            int slot = (int) (tick & mask);
+            Node node = heads[0][slot];
+            heads[0][slot] = null;
+            while (node != null) {
+                Node next = node.next;
+                nodes.remove(node.key);
+                expired.add(node.key);
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    private void run() {
+        while (running) {
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            advanceTo(targetTick);
+
+            long sleepNanos = startNanos + (targetTick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
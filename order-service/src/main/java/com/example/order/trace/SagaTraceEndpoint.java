@@ -0,0 +1,26 @@
+package com.example.order.trace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/sagatrace/{orderId}
+ * 이 인스턴스의 링 버퍼에 남아 있는 주문 하나의 Saga 단계 타임라인
+ */
+@Component
+@Endpoint(id = "sagatrace")
+@RequiredArgsConstructor
+public class SagaTraceEndpoint {
+
+    private final SagaTracer sagaTracer;
+
+    @ReadOperation
+    public List<SagaTracer.Trace> trace(@Selector long orderId) {
+        return sagaTracer.find(orderId);
+    }
+}
@@ -0,0 +1,26 @@
+-- ──────────────── Outbox 시간 파티션 테이블 ────────────────
+-- Hibernate(ddl-auto) 가 만든 일반 outbox 테이블을 created_at RANGE 파티션 테이블로 교체한다.
+-- create-drop 이라 이 시점의 outbox 는 항상 비어있다.
+-- 실제 파티션(outbox_pYYYYMMDD...)은 OutboxPartitionManager 가 미리 만들고, 오래된 것은 통째로 떼어낸다.
+-- id 는 Hibernate 가 outbox_seq(50씩 증가) 에서 미리 받아 채운다 → 컬럼 기본값 없음
+
+DROP TABLE IF EXISTS outbox CASCADE;
+
+CREATE TABLE outbox (
+    id          BIGINT       NOT NULL,
+    topic       VARCHAR(255),
+    message_key VARCHAR(255),
+    shard       INTEGER      NOT NULL,
+    payload     BYTEA,
+    sent        BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    sent_at     TIMESTAMP(6),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- 파티션 관리가 밀렸을 때를 위한 안전망
+-- 여기 행이 있으면 그 구간 파티션을 만들 수 없으므로 OutboxPartitionManager 가 경보를 내고 제 파티션으로 옮긴다
+CREATE TABLE outbox_default PARTITION OF outbox DEFAULT;
+
+-- 미발행 행만 담는 부분 인덱스 → 릴레이 조회 비용은 쌓인 히스토리가 아니라 대기 중인 건수에만 비례
+CREATE INDEX outbox_pending_idx ON outbox (shard, id) WHERE sent = false;
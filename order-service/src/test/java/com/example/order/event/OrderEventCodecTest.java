@@ -0,0 +1,135 @@
+package com.example.order.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderEventCodecTest {
+
+    @Test
+    void roundTripKeepsEveryField() {
+        UUID eventId = OrderEventCodec.newEventId();
+        OrderEvent decoded = OrderEventCodec.decode(OrderEventCodec.encode(event(eventId, "맥북 프로 14", OrderEvent.PAYMENT_REQUEST)));
+
+        assertThat(decoded.getEventId()).isEqualTo(eventId);
+        assertThat(decoded.getOrderId()).isEqualTo(42L);
+        assertThat(decoded.getProductName()).isEqualTo("맥북 프로 14");
+        assertThat(decoded.getQuantity()).isEqualTo(3);
+        assertThat(decoded.getPrice()).isEqualTo(1_500_000);
+        assertThat(decoded.getEventType()).isEqualTo(OrderEvent.PAYMENT_REQUEST);
+    }
+
+    @Test
+    void nullEventIdAndProductNameSurviveTheWire() {
+        byte[] encoded = OrderEventCodec.encode(event(null, null, OrderEvent.INVENTORY_RELEASE));
+        OrderEvent decoded = OrderEventCodec.decode(encoded);
+
+        // eventId 는 0/0 으로 실려서 null 로 돌아오고, productName 은 길이 0 → 빈 문자열
+        assertThat(encoded).hasSize(36);
+        assertThat(decoded.getEventId()).isNull();
+        assertThat(decoded.getProductName()).isEmpty();
+        assertThat(decoded.getEventType()).isEqualTo(OrderEvent.INVENTORY_RELEASE);
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderEventCodec.EventType.class)
+    void everyEventTypeRoundTrips(OrderEventCodec.EventType type) {
+        OrderEvent decoded = OrderEventCodec.decode(OrderEventCodec.encode(event(null, "상품", type.name())));
+
+        assertThat(decoded.getEventType()).isEqualTo(type.name());
+    }
+
+    @Test
+    void eventTypeCodesAreStable() {
+        // 코드는 세 서비스와 outbox 에 저장된 메시지가 공유한다 → 바뀌면 이전 메시지를 다른 타입으로 읽는다
+        assertThat(OrderEventCodec.encode(event(null, "", OrderEvent.PAYMENT_REQUEST))[1]).isEqualTo((byte) 1);
+        assertThat(OrderEventCodec.encode(event(null, "", OrderEvent.PAYMENT_ROLLBACK))[1]).isEqualTo((byte) 4);
+        assertThat(OrderEventCodec.encode(event(null, "", "PAYMENT_ROLLBACK_DONE"))[1]).isEqualTo((byte) 5);
+        assertThat(OrderEventCodec.encode(event(null, "", OrderEvent.INVENTORY_RELEASE))[1]).isEqualTo((byte) 9);
+    }
+
+    @Test
+    void decodesVersion1PayloadWithoutEventId() {
+        byte[] name = "아이패드".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer v1 = ByteBuffer.allocate(1 + 1 + 8 + 4 + 4 + 2 + name.length)
+                .put((byte) 1)
+                .put((byte) 7)          // INVENTORY_SUCCESS
+                .putLong(7L)
+                .putInt(2)
+                .putInt(800_000)
+                .putShort((short) name.length)
+                .put(name);
+
+        OrderEvent decoded = OrderEventCodec.decode(v1.array());
+
+        assertThat(decoded.getEventId()).isNull();
+        assertThat(decoded.getOrderId()).isEqualTo(7L);
+        assertThat(decoded.getQuantity()).isEqualTo(2);
+        assertThat(decoded.getPrice()).isEqualTo(800_000);
+        assertThat(decoded.getProductName()).isEqualTo("아이패드");
+        assertThat(decoded.getEventType()).isEqualTo(OrderEvent.INVENTORY_SUCCESS);
+    }
+
+    @Test
+    void writesCurrentVersion() {
+        assertThat(OrderEventCodec.encode(event(null, "", OrderEvent.PAYMENT_SUCCESS))[0]).isEqualTo(OrderEventCodec.VERSION);
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTypeCode() {
+        byte[] unknownVersion = OrderEventCodec.encode(event(null, "", OrderEvent.PAYMENT_SUCCESS));
+        unknownVersion[0] = 3;
+        byte[] unknownType = OrderEventCodec.encode(event(null, "", OrderEvent.PAYMENT_SUCCESS));
+        unknownType[1] = 15;
+
+        assertThatThrownBy(() -> OrderEventCodec.decode(unknownVersion)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderEventCodec.decode(unknownType)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reusedBufferGrowsAndDoesNotLeakBetweenMessages() {
+        // 초기 버퍼(256 바이트)보다 큰 메시지 → 버퍼를 키운 뒤 짧은 메시지를 같은 스레드에서 다시 인코딩
+        String longName = "가".repeat(300);
+        byte[] first = OrderEventCodec.encode(event(null, longName, OrderEvent.PAYMENT_REQUEST));
+        byte[] second = OrderEventCodec.encode(event(null, "짧은 이름", OrderEvent.PAYMENT_FAILED));
+
+        assertThat(second).hasSize(36 + "짧은 이름".getBytes(StandardCharsets.UTF_8).length);
+        assertThat(OrderEventCodec.decode(first).getProductName()).isEqualTo(longName);
+        assertThat(OrderEventCodec.decode(second).getProductName()).isEqualTo("짧은 이름");
+        assertThat(OrderEventCodec.decode(second).getEventType()).isEqualTo(OrderEvent.PAYMENT_FAILED);
+    }
+
+    @Test
+    void rejectsProductNameLongerThanLengthField() {
+        OrderEvent tooLong = event(null, "a".repeat(0x10000), OrderEvent.PAYMENT_REQUEST);
+
+        assertThatThrownBy(() -> OrderEventCodec.encode(tooLong)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void newEventIdIsRandomVersion4() {
+        UUID eventId = OrderEventCodec.newEventId();
+
+        assertThat(eventId.version()).isEqualTo(4);
+        assertThat(eventId.variant()).isEqualTo(2);
+        assertThat(OrderEventCodec.newEventId()).isNotEqualTo(eventId);
+    }
+
+    private static OrderEvent event(UUID eventId, String productName, String eventType) {
+        return OrderEvent.builder()
+                .eventId(eventId)
+                .orderId(42L)
+                .productName(productName)
+                .quantity(3)
+                .price(1_500_000)
+                .eventType(eventType)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.order.service;
+
+import com.example.order.entity.Order.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SagaDeadlineTrackerTest {
+
+    private final BlockingQueue<Object> published = new LinkedBlockingQueue<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SagaDeadlineTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SagaDeadlineTracker(published::add, null, null, meterRegistry);
+        ReflectionTestUtils.setField(tracker, "tickMs", 10L);
+        ReflectionTestUtils.setField(tracker, "paymentTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(tracker, "inventoryTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(tracker, "compensationTimeoutMs", 30_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.stop();
+    }
+
+    @Test
+    void inFlightStatusArmsAndFinalStatusCancels() {
+        tracker.start();
+
+        tracker.arm(1L, OrderStatus.PAYMENT_PENDING);
+        tracker.arm(2L, OrderStatus.COMPENSATING);
+        assertThat(tracker.pendingTimers()).isEqualTo(2);
+
+        tracker.arm(1L, OrderStatus.COMPLETED);
+        tracker.arm(2L, OrderStatus.CANCELLED);
+        assertThat(tracker.pendingTimers()).isZero();
+    }
+
+    @Test
+    void expiredDeadlinePublishesTimeoutEvent() throws InterruptedException {
+        ReflectionTestUtils.setField(tracker, "paymentTimeoutMs", 20L);
+        tracker.start();
+
+        tracker.arm(7L, OrderStatus.PAYMENT_PENDING);
+
+        assertThat(published.poll(5, TimeUnit.SECONDS)).isEqualTo(new SagaTimeoutEvent(7L));
+        assertThat(tracker.pendingTimers()).isZero();
+        assertThat(meterRegistry.get("saga.deadline.expire.failures").functionCounter().count()).isZero();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.order.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 워커 스레드 없이 advanceTo 로 tick 을 직접 돌린다
+ * bits 2, levels 3 → 레벨 0 은 4 tick, 레벨 1 은 16 tick, 레벨 2 는 64 tick 범위
+ */
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    private final List<Long> fired = new ArrayList<>();
+    private final TimingWheel wheel = new TimingWheel(TICK_MS, 2, 3, fired::add);
+
+    @Test
+    void firesOnTheDeadlineTick() {
+        wheel.schedule(1, 3 * TICK_MS);
+
+        wheel.advanceTo(2);
+        assertThat(fired).isEmpty();
+
+        wheel.advanceTo(3);
+        assertThat(fired).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void roundsDelayUpToWholeTicks() {
+        wheel.schedule(1, 0);            // 최소 1 tick
+        wheel.schedule(2, TICK_MS);      // 딱 1 tick
+        wheel.schedule(3, TICK_MS + 1);  // 올림 → 2 tick
+
+        wheel.advanceTo(1);
+        assertThat(fired).containsExactlyInAnyOrder(1L, 2L);
+
+        wheel.advanceTo(2);
+        assertThat(fired).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    /** 레벨 경계(4, 16, 64 tick)와 맨 위 레벨 범위 밖(>63 tick)에서도 데드라인 tick 에 정확히 만료 */
+    @ParameterizedTest
+    @CsvSource({
+            "0, 3", "0, 4", "0, 5", "0, 15", "0, 16", "0, 17", "0, 63", "0, 64", "0, 200",
+            "5, 4", "5, 16", "13, 51", "17, 63", "30, 34", "3, 300"
+    })
+    void firesExactlyOnDeadlineAcrossLevels(long start, long ticks) {
+        wheel.advanceTo(start);
+        wheel.schedule(42, ticks * TICK_MS);
+
+        wheel.advanceTo(start + ticks - 1);
+        assertThat(fired).isEmpty();
+
+        wheel.advanceTo(start + ticks);
+        assertThat(fired).containsExactly(42L);
+    }
+
+    @Test
+    void cancelBeforeFire() {
+        wheel.schedule(1, 5 * TICK_MS);
+        wheel.schedule(2, 5 * TICK_MS);
+        wheel.cancel(1);
+
+        wheel.advanceTo(10);
+        assertThat(fired).containsExactly(2L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelAfterCascadeToLowerLevel() {
+        wheel.schedule(1, 20 * TICK_MS);  // 레벨 2 → tick 16 에 아래 레벨로 내려옴
+        wheel.advanceTo(16);
+        wheel.cancel(1);
+
+        wheel.advanceTo(100);
+        assertThat(fired).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesDeadline() {
+        wheel.schedule(1, 2 * TICK_MS);
+        wheel.schedule(1, 10 * TICK_MS);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advanceTo(9);
+        assertThat(fired).isEmpty();
+
+        wheel.advanceTo(20);
+        assertThat(fired).containsExactly(1L);
+    }
+
+    @Test
+    void failingCallbackIsCountedAndOthersStillFire() {
+        TimingWheel failing = new TimingWheel(TICK_MS, 2, 3, key -> {
+            if (key == 1) {
+                throw new IllegalStateException("rejected");
+            }
+            fired.add(key);
+        });
+        failing.schedule(1, TICK_MS);
+        failing.schedule(2, TICK_MS);
+
+        failing.advanceTo(1);
+        assertThat(fired).containsExactly(2L);
+        assertThat(failing.expireFailures()).isEqualTo(1);
+    }
+}
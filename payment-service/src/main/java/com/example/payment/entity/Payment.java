@@ -10,8 +10,13 @@ import lombok.*;
 @Builder
 public class Payment {
 
+    /**
+     * IDENTITY 는 INSERT 마다 키를 받아와야 해서 JDBC 배치가 안 된다.
+     * 시퀀스를 50개씩 미리 받아두면(pooled) INSERT 를 모아서 한 번에 보낼 수 있다.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     private Long orderId;
@@ -22,6 +27,10 @@ public class Payment {
 
     public enum PaymentStatus {
         COMPLETED,
-        ROLLED_BACK
+        /** PG 가 승인을 거절 (돈이 나가지 않음) */
+        DECLINED,
+        ROLLED_BACK,
+        /** 보상 / 승인 취소를 PG 가 거절 (주문 취소는 진행, 운영자 확인 대상) */
+        REFUND_FAILED
     }
 }
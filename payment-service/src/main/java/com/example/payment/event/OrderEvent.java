@@ -2,12 +2,15 @@ package com.example.payment.event;
 
 import lombok.*;
 import java.io.Serializable;
+import java.util.UUID;
 
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder
 @ToString
 public class OrderEvent implements Serializable {
+    /** 이벤트 고유 ID - 발행 시점에 찍히고, 받는 쪽은 이걸로 중복 수신을 걸러낸다 */
+    private UUID eventId;
     private Long orderId;
     private String productName;
     private int quantity;
@@ -0,0 +1,151 @@
+package com.example.payment.event;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OrderEvent 바이너리 인코딩 (세 서비스가 같은 포맷을 공유)
+ *
+ * JSON 문자열 대신 고정 레이아웃 바이트로 주고받는다.
+ * 같은 바이트가 Kafka 메시지 값이자 outbox.payload 에 그대로 저장된다.
+ *
+ * [v2 레이아웃] (빅 엔디안)
+ * byte   version     (= 2)
+ * byte   eventType   (EventType 코드)
+ * long   eventId 상위 64비트  ┐ 둘 다 0 이면 eventId 없음
+ * long   eventId 하위 64비트  ┘
+ * long   orderId
+ * int    quantity
+ * int    price
+ * ushort productName 길이 + UTF-8 바이트
+ *
+ * 필드를 추가할 땐 VERSION 을 올리고 decode 에서 이전 버전도 계속 읽을 수 있게 한다.
+ * v1 = v2 에서 eventId 가 빠진 레이아웃 (롤링 배포 중 이전 메시지 호환용으로만 읽음)
+ */
+public final class OrderEventCodec {
+
+    public static final byte VERSION = 2;
+    private static final byte VERSION_1 = 1;
+
+    private static final int HEADER_SIZE = 1 + 1 + 16 + 8 + 4 + 4 + 2;
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /** 스레드별 인코딩 버퍼 재사용 → 메시지마다 큰 버퍼를 새로 만들지 않음 */
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    /**
+     * 이벤트 타입 → 1바이트 코드
+     * 코드는 절대 바꾸거나 재사용하지 않는다 (새 타입은 뒤에 추가)
+     */
+    public enum EventType {
+        PAYMENT_REQUEST(1),
+        PAYMENT_SUCCESS(2),
+        PAYMENT_FAILED(3),
+        PAYMENT_ROLLBACK(4),
+        PAYMENT_ROLLBACK_DONE(5),
+        INVENTORY_REQUEST(6),
+        INVENTORY_SUCCESS(7),
+        INVENTORY_FAILED(8),
+        INVENTORY_RELEASE(9);
+
+        private static final EventType[] BY_CODE = new EventType[16];
+
+        static {
+            for (EventType type : values()) {
+                BY_CODE[type.code] = type;
+            }
+        }
+
+        private final byte code;
+
+        EventType(int code) {
+            this.code = (byte) code;
+        }
+
+        static EventType fromCode(byte code) {
+            EventType type = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+            if (type == null) {
+                throw new IllegalArgumentException("알 수 없는 이벤트 타입 코드: " + code);
+            }
+            return type;
+        }
+    }
+
+    private OrderEventCodec() {
+    }
+
+    /**
+     * 새 이벤트 ID (UUID v4)
+     * UUID.randomUUID() 는 SecureRandom 을 공유해서 느리므로 ThreadLocalRandom 으로 만든다.
+     */
+    public static UUID newEventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long most = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+
+    public static byte[] encode(OrderEvent event) {
+        byte[] productName = event.getProductName() == null
+                ? new byte[0]
+                : event.getProductName().getBytes(StandardCharsets.UTF_8);
+        if (productName.length > 0xFFFF) {
+            throw new IllegalArgumentException("productName 이 너무 깁니다: " + productName.length + " bytes");
+        }
+
+        ByteBuffer buffer = BUFFER.get();
+        int size = HEADER_SIZE + productName.length;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            BUFFER.set(buffer);
+        }
+
+        buffer.clear();
+        buffer.put(VERSION);
+        buffer.put(EventType.valueOf(event.getEventType()).code);
+        UUID eventId = event.getEventId();
+        buffer.putLong(eventId == null ? 0 : eventId.getMostSignificantBits());
+        buffer.putLong(eventId == null ? 0 : eventId.getLeastSignificantBits());
+        buffer.putLong(event.getOrderId());
+        buffer.putInt(event.getQuantity());
+        buffer.putInt(event.getPrice());
+        buffer.putShort((short) productName.length);
+        buffer.put(productName);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public static OrderEvent decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IllegalArgumentException("지원하지 않는 OrderEvent 버전: " + version);
+        }
+
+        // enum name() 은 상수 문자열이라 디코딩마다 새 문자열을 만들지 않는다
+        String eventType = EventType.fromCode(buffer.get()).name();
+        UUID eventId = null;
+        if (version >= VERSION) {
+            long most = buffer.getLong();
+            long least = buffer.getLong();
+            eventId = most == 0 && least == 0 ? null : new UUID(most, least);
+        }
+        long orderId = buffer.getLong();
+        int quantity = buffer.getInt();
+        int price = buffer.getInt();
+        int nameLength = Short.toUnsignedInt(buffer.getShort());
+        String productName = new String(data, buffer.position(), nameLength, StandardCharsets.UTF_8);
+
+        return OrderEvent.builder()
+                .eventId(eventId)
+                .orderId(orderId)
+                .productName(productName)
+                .quantity(quantity)
+                .price(price)
+                .eventType(eventType)
+                .build();
+    }
+}
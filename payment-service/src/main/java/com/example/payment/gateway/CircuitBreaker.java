@@ -0,0 +1,115 @@
+package com.example.payment.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 호출 횟수 기준 서킷 브레이커
+ *
+ * CLOSED    : 최근 window 건 중 실패 비율이 failure-rate 이상이면 OPEN
+ * OPEN      : open-ms 동안 호출 없이 바로 실패
+ * HALF_OPEN : 시험 호출 한 건만 통과 → 성공하면 CLOSED, 실패하면 다시 OPEN
+ *
+ * 임계 구역이 짧아 락 하나로 충분하다 (synchronized 대신 ReentrantLock → 가상 스레드 고정 없음)
+ */
+@Slf4j
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final double failureRate;
+    private final long openNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int next;
+    private int count;
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+
+    CircuitBreaker(int windowSize, double failureRate, long openNanos) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.failureRate = failureRate;
+        this.openNanos = openNanos;
+    }
+
+    /** 호출해도 되는지 (HALF_OPEN 이면 시험 호출 한 건만 true) */
+    boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+                state = State.HALF_OPEN;
+                probing = false;
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> !probing && (probing = true);
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 호출 결과 반영 (success = PG 와 통신이 됐는지, 거절은 성공으로 친다) */
+    void onResult(boolean success) {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (probing) {
+                    probing = false;
+                    if (success) {
+                        reset();
+                        state = State.CLOSED;
+                        log.info("🔌 PG 서킷 닫힘 (시험 호출 성공)");
+                    } else {
+                        open();
+                    }
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+            if (count == window.length) {
+                failures -= window[next] ? 0 : 1;
+            } else {
+                count++;
+            }
+            window[next] = success;
+            failures += success ? 0 : 1;
+            next = (next + 1) % window.length;
+            if (count == window.length && failures >= failureRate * count) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openNanos;
+        log.warn("🔌 PG 서킷 열림: {}ms 동안 호출 차단 (최근 {}건 중 실패 {}건)",
+                openNanos / 1_000_000, count, failures);
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        count = 0;
+        failures = 0;
+    }
+}
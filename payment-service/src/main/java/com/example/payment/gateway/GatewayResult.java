@@ -0,0 +1,28 @@
+package com.example.payment.gateway;
+
+/**
+ * PG 호출 결과
+ *
+ * @param approved 승인(환불이면 취소 완료) 여부
+ * @param unknown  PG 가 처리했는지 모름 (타임아웃 / 통신 오류) → 승인됐을 수도 있으니 거절로 보면 안 된다
+ * @param rejected PG 에 보내지도 않음 (동시 요청 한도 초과 / 서킷 열림) → PG 의 답이 아니므로 다시 걸어야 한다
+ * @param reason   거절 / 실패 사유 (승인이면 null)
+ */
+public record GatewayResult(boolean approved, boolean unknown, boolean rejected, String reason) {
+
+    public static GatewayResult approve() {
+        return new GatewayResult(true, false, false, null);
+    }
+
+    public static GatewayResult decline(String reason) {
+        return new GatewayResult(false, false, false, reason);
+    }
+
+    public static GatewayResult unknown(String reason) {
+        return new GatewayResult(false, true, false, reason);
+    }
+
+    public static GatewayResult notSent(String reason) {
+        return new GatewayResult(false, false, true, reason);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.payment.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 외부 PG 연동 (비동기)
+ *
+ * 구현체는 호출한 스레드를 막지 않고 CompletableFuture 로 결과를 돌려준다.
+ * orderId 를 멱등 키로 넘기므로, 재전송 등으로 같은 주문을 다시 요청해도 PG 에서는 한 번만 처리된다고 가정한다.
+ * 동시 요청 수 / 타임아웃 / 서킷 브레이커는 PaymentGatewayClient 가 감싼다.
+ */
+public interface PaymentGateway {
+
+    /** 결제 승인 (승인 / 거절은 결과로, 통신 오류는 예외로 완료) */
+    CompletableFuture<GatewayResult> charge(long orderId, int amount);
+
+    /** 승인 취소(환불) */
+    CompletableFuture<GatewayResult> refund(long orderId, int amount);
+}
@@ -0,0 +1,156 @@
+package com.example.payment.gateway;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * PaymentGateway 를 감싸는 비동기 클라이언트
+ *
+ * - 동시 요청 수: max-in-flight 세마포어. 다 차면 acquire-timeout-ms 까지만 기다리고(리스너 배압) 실패 처리
+ * - 타임아웃: timeout-ms 안에 응답이 없으면 결과 불명 (PG 쪽 처리 여부를 모름 → 호출한 쪽이 취소로 정리)
+ * - 서킷 브레이커: 통신 실패가 몰리면 open-ms 동안 호출 없이 바로 실패
+ *
+ * 어떤 경우든 future 는 예외 없이 GatewayResult 로 완료된다.
+ * PG 에 보내지도 않은 실패(한도 초과 / 서킷 열림)는 rejected, 보낸 뒤의 타임아웃 / 통신 오류는 unknown.
+ * 둘 다 PG 의 답이 아니다 → 거절(decline)로 보지 말고 호출한 쪽이 다시 건다.
+ * 결과를 받아 DB 에 쓰거나 PG 를 다시 부르는 후속 작업은 executor() 에서 돌린다 → PG 타이머 / 타임아웃 스레드가 세마포어에서 막히지 않음
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentGatewayClient {
+
+    private final PaymentGateway gateway;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.gateway.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${payment.gateway.acquire-timeout-ms:1000}")
+    private long acquireTimeoutMs;
+
+    @Value("${payment.gateway.timeout-ms:1000}")
+    private long timeoutMs;
+
+    @Value("${payment.gateway.callback-threads:8}")
+    private int callbackThreads;
+
+    @Value("${payment.gateway.breaker.window:20}")
+    private int breakerWindow;
+
+    @Value("${payment.gateway.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${payment.gateway.breaker.open-ms:5000}")
+    private long breakerOpenMs;
+
+    private Semaphore permits;
+    private CircuitBreaker breaker;
+    private ExecutorService executor;
+
+    /** 결과별 호출 시간 타이머 (태그 조합마다 한 번만 생성) */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxInFlight);
+        breaker = new CircuitBreaker(breakerWindow, breakerFailureRate, TimeUnit.MILLISECONDS.toNanos(breakerOpenMs));
+        executor = Executors.newFixedThreadPool(callbackThreads, Thread.ofPlatform().name("pg-callback-", 0).factory());
+
+        Gauge.builder("payment.gateway.in-flight", this, client -> maxInFlight - client.permits.availablePermits())
+                .description("응답을 기다리는 PG 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.breaker.state", this, client -> client.breaker.state().ordinal())
+                .description("PG 서킷 상태 (0=CLOSED, 1=OPEN, 2=HALF_OPEN)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeoutMs + 5_000, TimeUnit.MILLISECONDS);
+    }
+
+    /** PG 결과를 받아 DB 반영 / 응답 발행을 하는 스레드 풀 (DB 커넥션 풀보다 작게) */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    public CompletableFuture<GatewayResult> charge(long orderId, int amount) {
+        return call("charge", () -> gateway.charge(orderId, amount));
+    }
+
+    public CompletableFuture<GatewayResult> refund(long orderId, int amount) {
+        return call("refund", () -> gateway.refund(orderId, amount));
+    }
+
+    private CompletableFuture<GatewayResult> call(String operation, Supplier<CompletableFuture<GatewayResult>> request) {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return reject(operation, "overloaded", "PG 동시 요청 한도 초과");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(operation, "overloaded", "PG 요청 대기 중 인터럽트");
+        }
+        if (!breaker.tryAcquire()) {
+            permits.release();
+            return reject(operation, "circuit_open", "PG 서킷 열림");
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<GatewayResult> future;
+        try {
+            future = request.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    permits.release();
+                    breaker.onResult(error == null);
+                    if (error == null) {
+                        timer(operation, result.approved() ? "approved" : "declined").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return result;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    boolean timeout = cause instanceof TimeoutException;
+                    timer(operation, timeout ? "timeout" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    log.debug("💥 PG {} 실패: {}", operation, timeout ? "타임아웃" : cause.getMessage());
+                    return GatewayResult.unknown(timeout ? "PG 응답 시간 초과" : "PG 통신 오류");
+                });
+    }
+
+    private CompletableFuture<GatewayResult> reject(String operation, String outcome, String reason) {
+        timer(operation, outcome).record(0, TimeUnit.NANOSECONDS);
+        return CompletableFuture.completedFuture(GatewayResult.notSent(reason));
+    }
+
+    /** payment.gateway{operation, outcome}: approved / declined / timeout / error / overloaded / circuit_open */
+    private Timer timer(String operation, String outcome) {
+        return timers.computeIfAbsent(operation + ':' + outcome, key -> Timer.builder("payment.gateway")
+                .description("PG 호출 시간")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
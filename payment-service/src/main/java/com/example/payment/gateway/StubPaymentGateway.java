@@ -0,0 +1,84 @@
+package com.example.payment.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 테스트용 가짜 PG (payment.gateway.type=stub, 기본값)
+ *
+ * 요청마다 스레드를 잡지 않고, 타이머 스레드 하나가 latency ± jitter 뒤에 결과를 채운다.
+ * - 총액이 decline-amount 초과 → 거절 (기존 "100만원 초과 실패" 시뮬레이션)
+ * - error-rate 비율 → 통신 오류(예외)
+ * - timeout-rate 비율 → 영원히 응답 없음 (클라이언트 타임아웃 경로 확인용)
+ */
+@Component
+@ConditionalOnProperty(name = "payment.gateway.type", havingValue = "stub", matchIfMissing = true)
+@Slf4j
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${payment.gateway.stub.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${payment.gateway.stub.jitter-ms:50}")
+    private long jitterMs;
+
+    @Value("${payment.gateway.stub.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${payment.gateway.stub.timeout-rate:0.0}")
+    private double timeoutRate;
+
+    @Value("${payment.gateway.stub.decline-amount:1000000}")
+    private int declineAmount;
+
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("stub-pg").daemon().factory());
+        log.info("🏦 가짜 PG 사용: latency={}±{}ms, error-rate={}, timeout-rate={}", latencyMs, jitterMs, errorRate, timeoutRate);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> charge(long orderId, int amount) {
+        return respond(amount > declineAmount ? GatewayResult.decline("금액 초과") : GatewayResult.approve());
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> refund(long orderId, int amount) {
+        return respond(GatewayResult.approve());
+    }
+
+    private CompletableFuture<GatewayResult> respond(GatewayResult result) {
+        CompletableFuture<GatewayResult> future = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < timeoutRate) {
+            return future;
+        }
+        boolean error = random.nextDouble() < errorRate;
+        long delay = Math.max(0, latencyMs + (jitterMs > 0 ? random.nextLong(-jitterMs, jitterMs + 1) : 0));
+        timer.schedule(() -> {
+            if (error) {
+                future.completeExceptionally(new IllegalStateException("PG 통신 오류 (stub)"));
+            } else {
+                future.complete(result);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
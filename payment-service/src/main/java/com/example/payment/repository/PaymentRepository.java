@@ -2,8 +2,12 @@ package com.example.payment.repository;
 
 import com.example.payment.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(Long orderId);
+
+    List<Payment> findAllByOrderIdIn(Collection<Long> orderIds);
 }
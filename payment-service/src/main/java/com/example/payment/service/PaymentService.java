@@ -1,112 +1,584 @@
 package com.example.payment.service;
 
+import com.example.payment.config.AdaptiveKafkaProducer;
 import com.example.payment.entity.Payment;
 import com.example.payment.entity.Payment.PaymentStatus;
 import com.example.payment.event.OrderEvent;
+import com.example.payment.event.OrderEventCodec;
+import com.example.payment.gateway.GatewayResult;
+import com.example.payment.gateway.PaymentGatewayClient;
 import com.example.payment.repository.PaymentRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.payment.trace.SagaTracer;
+import com.example.payment.trace.SagaTracer.Step;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 결제 Saga 참여자
+ *
+ * PG 호출은 PaymentGatewayClient 로 비동기 처리한다. 리스너는 PG 요청만 걸어 두고 바로 돌아가고,
+ * 결과가 오면 PG 콜백 스레드에서 (처리 기록 + 결제 변경) 트랜잭션 → 응답 발행 → 수동 ack 순서로 마무리한다.
+ * async-acks 라서 ack 순서가 뒤섞여도 컨테이너가 빈틈없는 오프셋까지만 커밋하고,
+ * 이전 poll 의 ack 가 다 올 때까지 다음 poll 을 멈춘다 → 컨슈머당 in-flight 는 poll 크기 이하.
+ * PG 를 기다리는 동안 DB 트랜잭션도 리스너 스레드도 잡지 않는다.
+ *
+ * - 같은 주문의 작업(PG 호출 + DB 반영)은 앞 작업이 끝난 뒤 시작 → 결제 요청과 그 주문의 롤백이 엇갈리지 않음
+ * - 승인 결과를 모르면(타임아웃 / 통신 오류) 같은 멱등 키로 바로 취소하고, 그 결과를 결제 기록으로 남김
+ * - 롤백은 로컬 기록과 상관없이 orderId(멱등 키)로 환불
+ * - DB 반영이 성공한 레코드만 ack. 실패하면 성공할 때까지 재시도하고, alert-after 번을 넘기면 error 로그 + payment.db.stuck
+ *   (ack 하지 않은 채 두면 async-acks 컨테이너가 그 파티션을 멈춘 채 poll / heartbeat 만 계속해서 리밸런스도 재전달도 없다)
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final AdaptiveKafkaProducer<OrderEvent> producer;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedEventFilter processedEventFilter;
+    private final MeterRegistry meterRegistry;
+    private final SagaTracer sagaTracer;
+    private final PaymentGatewayClient gatewayClient;
+
+    @Value("${payment.db.retry.alert-after:5}")
+    private int dbAlertAfter;
+
+    @Value("${payment.db.retry.backoff-ms:1000}")
+    private long dbBackoffMs;
+
+    @Value("${payment.db.retry.max-backoff-ms:30000}")
+    private long dbMaxBackoffMs;
+
+    @Value("${payment.gateway.retry.backoff-ms:200}")
+    private long gatewayBackoffMs;
+
+    @Value("${payment.gateway.retry.max-backoff-ms:5000}")
+    private long gatewayMaxBackoffMs;
+
+    /** 이벤트 타입별 처리 시간 타이머 (태그 조합마다 한 번만 생성) */
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+
+    /** 주문별로 진행 중인 마지막 작업 → 같은 주문의 다음 작업은 이게 끝난 뒤 시작 */
+    private final Map<Long, CompletableFuture<?>> inFlightByOrder = new ConcurrentHashMap<>();
+
+    /** DB 반영이 alert-after 번 넘게 실패해서 아직 재시도 중인 레코드 수 (0 이 아니면 그 파티션이 멈춰 있음) */
+    private final AtomicInteger dbStuck = new AtomicInteger();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("payment.db.stuck", dbStuck, AtomicInteger::get)
+                .description("DB 반영 재시도가 alert-after 번을 넘긴 레코드 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * PG 호출 결과
+     *
+     * @param result PG 응답 (결제 요청이면 승인, 롤백이면 환불)
+     * @param voided 승인 결과를 몰라서 바로 건 취소의 결과 (그 외엔 null)
+     */
+    private record Outcome(GatewayResult result, GatewayResult voided) {
+    }
+
+    /** 배치 모드(payment.listener.batch-enabled=true)에서는 아래 handlePaymentBatch 가 대신 뜬다 */
+    @KafkaListener(topics = "payment-topic", groupId = "payment-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            autoStartup = "#{!${payment.listener.batch-enabled:false}}")
+    public void handlePaymentEvent(OrderEvent event, Acknowledgment ack) {
+        log.debug("📩 결제 이벤트 수신: type={}, orderId={}", event.getEventType(), event.getOrderId());
+
+        if (processedEventFilter.isDuplicate(event.getEventId())) {
+            log.debug("⏭️ 중복 이벤트 무시: eventId={}, orderId={}", event.getEventId(), event.getOrderId());
+            ack.acknowledge();
+            return;
+        }
+        long start = sagaTracer.start();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        inOrder(List.of(event.getOrderId()), () -> process(event)).whenComplete((done, error) -> {
+            sample.stop(handlerTimer(event.getEventType(), "single"));
+            if (error != null) {
+                // DB 반영은 성공할 때까지 재시도하므로 여기는 종료 중(콜백 풀 종료)일 때만 → 재시작하면 커밋 안 된 오프셋부터 다시 전달
+                log.error("🚨 결제 이벤트 처리 중단 → ack 하지 않음: orderId={}, {}",
+                        event.getOrderId(), error.getMessage(), error);
+                return;
+            }
+            sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), start);
+            ack.acknowledge();
+        });
+    }
+
+    /** 건별 처리: PG 호출 → (콜백 스레드) 처리 기록 + 결제 반영 */
+    private CompletableFuture<Void> process(OrderEvent event) {
+        return callGateway(event).thenComposeAsync(
+                outcome -> persist("orderId=" + event.getOrderId(), () -> handleOnce(event, outcome)),
+                gatewayClient.executor());
+    }
+
+    /**
+     * 같은 주문의 앞 작업(다른 레코드 / 다른 poll 이어도)이 끝난 뒤에 work 를 시작한다
+     * 앞 작업이 없으면 호출한 스레드(리스너)에서 바로 시작 → PG 동시 요청 한도의 배압도 그대로 리스너에 걸린다
+     * 앞 작업을 기다렸다면 콜백 스레드에서 시작 (앞 작업을 끝낸 PG 타이머 / 타임아웃 스레드가 세마포어에서 막히지 않게)
+     */
+    private <T> CompletableFuture<T> inOrder(Collection<Long> orderIds, Supplier<CompletableFuture<T>> work) {
+        Set<Long> keys = new LinkedHashSet<>(orderIds);
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        List<CompletableFuture<?>> previous = new ArrayList<>();
+        for (Long orderId : keys) {
+            CompletableFuture<?> before = inFlightByOrder.put(orderId, gate);
+            if (before != null) {
+                // 앞 작업이 실패했어도 순서만 지키면 된다
+                previous.add(before.handle((result, error) -> null));
+            }
+        }
+        CompletableFuture<T> result = previous.isEmpty()
+                ? startHere(work)
+                : CompletableFuture.allOf(previous.toArray(CompletableFuture[]::new))
+                        .thenComposeAsync(ignored -> work.get(), gatewayClient.executor());
+        result.whenComplete((value, error) -> {
+            keys.forEach(orderId -> inFlightByOrder.remove(orderId, gate));
+            gate.complete(null);
+        });
+        return result;
+    }
+
+    /** work 를 지금 스레드에서 시작 (work 가 던지면 실패한 future 로) */
+    private static <T> CompletableFuture<T> startHere(Supplier<CompletableFuture<T>> work) {
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-    @KafkaListener(topics = "payment-topic", groupId = "payment-group")
-    public void handlePaymentEvent(String message) {
+    /**
+     * DB 반영: 실패하면 backoff 뒤 다시 시도 (PG 는 이미 처리됐을 수 있으므로 결과를 버리지 않는다)
+     * 횟수 제한 없이 성공할 때까지 → 간격은 시도마다 늘어나고 max-backoff-ms 에서 멈춘다.
+     * async-acks 에서는 콜백 스레드가 nack / seek 를 부를 수 없고, ack 하지 않고 포기하면 파티션이 영영 멈춘다.
+     * 그래서 포기하지 않고, alert-after 번을 넘기면 error 로그 + payment.db.stuck 게이지로 알린다.
+     */
+    private CompletableFuture<Void> persist(String what, Runnable step) {
+        return persist(what, step, 1);
+    }
+
+    private CompletableFuture<Void> persist(String what, Runnable step, int attempt) {
         try {
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            log.info("📩 결제 이벤트 수신: type={}, orderId={}", event.getEventType(), event.getOrderId());
+            step.run();
+            if (attempt > dbAlertAfter) {
+                dbStuck.decrementAndGet();
+                log.info("✅ 결제 DB 반영 복구 ({}번째 시도): {}", attempt, what);
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            long backoff = Math.min(dbMaxBackoffMs, dbBackoffMs * attempt);
+            if (attempt < dbAlertAfter) {
+                log.warn("⚠️ 결제 DB 반영 실패 ({}번째), {}ms 뒤 재시도: {}, {}", attempt, backoff, what, e.getMessage());
+            } else {
+                if (attempt == dbAlertAfter) {
+                    dbStuck.incrementAndGet();
+                }
+                log.error("🚨 결제 DB 반영 계속 실패 ({}번째, 이 파티션 처리 멈춤), {}ms 뒤 재시도: {}, {}",
+                        attempt, backoff, what, e.getMessage(), e);
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS, gatewayClient.executor());
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> persist(what, step, attempt + 1));
+        }
+    }
+
+    /**
+     * PG 결과를 받은 뒤: 중복 이벤트 차단 후 처리
+     * 처리 기록(INSERT)과 결제 변경이 같은 트랜잭션이라, 둘 중 하나만 남는 일은 없다.
+     * (PG 를 기다리는 동안 같은 이벤트가 또 오면 PG 호출은 두 번이지만 orderId 멱등 키로 한 번만 처리되고, 기록은 먼저 끝난 쪽만 남는다)
+     */
+    private void handleOnce(OrderEvent event, Outcome outcome) {
+        long start = sagaTracer.start();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!processedEventFilter.markProcessed(event.getEventId())) {
+                log.debug("⏭️ 중복 이벤트 무시: eventId={}, orderId={}", event.getEventId(), event.getOrderId());
+                return;
+            }
+            handle(event, outcome);
+        });
+        sagaTracer.record(event.getOrderId(), Step.DB_WRITE, event.getEventType(), start);
+    }
 
+    private void handle(OrderEvent event, Outcome outcome) {
+        switch (event.getEventType()) {
+            case OrderEvent.PAYMENT_REQUEST:
+                processPayment(event, outcome);
+                break;
+
+            case OrderEvent.PAYMENT_ROLLBACK:
+                // ★ 보상 트랜잭션: 재고 실패로 인한 결제 취소
+                rollbackPayment(event, outcome.result());
+                break;
+
+            default:
+                log.warn("알 수 없는 이벤트: {}", event.getEventType());
+        }
+    }
+
+    /**
+     * 배치의 PG 호출: 주문별로는 이벤트 순서대로(결제 → 롤백 환불) 하나씩, 주문끼리는 동시에
+     * 같은 주문의 다음 호출은 콜백 스레드에서 건다 (앞 응답을 채운 PG 타이머 스레드에서 세마포어를 기다리지 않게)
+     */
+    private CompletableFuture<Map<OrderEvent, Outcome>> callGateway(List<OrderEvent> events) {
+        Map<OrderEvent, Outcome> outcomes = Collections.synchronizedMap(new IdentityHashMap<>());
+        Map<Long, List<OrderEvent>> byOrder = events.stream()
+                .collect(Collectors.groupingBy(OrderEvent::getOrderId, LinkedHashMap::new, Collectors.toList()));
+        List<CompletableFuture<Void>> chains = new ArrayList<>(byOrder.size());
+        for (List<OrderEvent> sameOrder : byOrder.values()) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (OrderEvent event : sameOrder) {
+                chain = chain.thenComposeAsync(ignored -> callGateway(event), gatewayClient.executor())
+                        .thenAccept(outcome -> outcomes.put(event, outcome));
+            }
+            chains.add(chain);
+        }
+        return CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new))
+                .thenApply(done -> outcomes);
+    }
+
+    /**
+     * PG 호출: 결제 요청 → 승인, 롤백 → orderId(멱등 키)로 환불
+     * 롤백은 로컬에 COMPLETED 결제가 없어도 환불을 건다 (PG 에 결제가 없으면 할 일 없음 = 승인)
+     * 승인 결과를 모르면 같은 키로 바로 취소해서 "돈은 나갔는데 결제 실패" 로 끝나지 않게 한다.
+     * (취소는 콜백 스레드에서 건다 → 타임아웃을 낸 스레드가 세마포어를 기다리지 않음)
+     *
+     * 로컬 거절(한도 초과 / 서킷 열림)은 PG 의 답이 아니므로 다시 건다 → 배압 때문에 주문이 실패하지 않는다.
+     * 환불 / 취소는 결과 불명이어도 다시 건다 → PG 가 승인 또는 거절로 답하기 전엔 응답도 ack 도 하지 않음
+     */
+    private CompletableFuture<Outcome> callGateway(OrderEvent event) {
+        long orderId = event.getOrderId();
+        int amount = event.getPrice() * event.getQuantity();
+        switch (event.getEventType()) {
+            case OrderEvent.PAYMENT_REQUEST:
+                return untilAnswered("charge", orderId, () -> gatewayClient.charge(orderId, amount),
+                        GatewayResult::rejected)
+                        .thenComposeAsync(result -> {
+                            if (!result.unknown()) {
+                                return CompletableFuture.completedFuture(new Outcome(result, null));
+                            }
+                            log.warn("⚠️ PG 승인 결과 불명 ({}) → 승인 취소: orderId={}", result.reason(), orderId);
+                            return refund(orderId, amount).thenApply(voided -> new Outcome(result, voided));
+                        }, gatewayClient.executor());
+
+            case OrderEvent.PAYMENT_ROLLBACK:
+                return refund(orderId, amount).thenApply(result -> new Outcome(result, null));
+
+            default:
+                return CompletableFuture.completedFuture(new Outcome(GatewayResult.decline("알 수 없는 이벤트"), null));
+        }
+    }
+
+    /** 환불 / 취소: PG 가 승인 또는 거절로 답할 때까지 (orderId 멱등 키라 여러 번 걸어도 한 번만 환불) */
+    private CompletableFuture<GatewayResult> refund(long orderId, int amount) {
+        return untilAnswered("refund", orderId, () -> gatewayClient.refund(orderId, amount),
+                result -> result.rejected() || result.unknown());
+    }
+
+    /**
+     * retry 에 걸리는 결과면 backoff 뒤 다시 건다 (간격은 시도마다 늘어나고 max-backoff-ms 에서 멈춤, 횟수 제한 없음)
+     * 다시 거는 호출은 콜백 스레드에서 → 세마포어를 기다려도 PG 타이머 / 타임아웃 스레드는 막히지 않는다
+     */
+    private CompletableFuture<GatewayResult> untilAnswered(String operation, long orderId,
+                                                           Supplier<CompletableFuture<GatewayResult>> call,
+                                                           Predicate<GatewayResult> retry) {
+        return untilAnswered(operation, orderId, call, retry, 1);
+    }
+
+    private CompletableFuture<GatewayResult> untilAnswered(String operation, long orderId,
+                                                           Supplier<CompletableFuture<GatewayResult>> call,
+                                                           Predicate<GatewayResult> retry, int attempt) {
+        return call.get().thenCompose(result -> {
+            if (!retry.test(result)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            long backoff = Math.min(gatewayMaxBackoffMs, gatewayBackoffMs * attempt);
+            meterRegistry.counter("payment.gateway.retry", "operation", operation).increment();
+            log.warn("⚠️ PG {} 응답 없음 ({}), {}ms 뒤 다시 요청 ({}번째): orderId={}",
+                    operation, result.reason(), backoff, attempt, orderId);
+            Executor delayed = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS, gatewayClient.executor());
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenComposeAsync(ignored -> untilAnswered(operation, orderId, call, retry, attempt + 1),
+                            gatewayClient.executor());
+        });
+    }
+
+    /**
+     * 배치 모드: poll 한 번의 결제 이벤트를 PG 에 한꺼번에 요청하고, 결과가 다 오면 한 트랜잭션으로 처리
+     *
+     * Payment 는 시퀀스(pooled) ID 라서 INSERT 가 진짜 JDBC 배치로 나가고,
+     * 응답도 커밋 후 모아서 한 번에 보낸 뒤 배치 전체를 ack 한다.
+     */
+    @KafkaListener(topics = "payment-topic", groupId = "payment-group",
+            concurrency = "${saga.listener.concurrency:1}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${payment.listener.batch-enabled:false}")
+    public void handlePaymentBatch(List<OrderEvent> records, Acknowledgment ack) {
+        long batchStart = sagaTracer.start();
+        // 디코딩에 실패한 레코드는 ErrorHandlingDeserializer 가 null 로 넘겨준다
+        List<OrderEvent> events = records.stream()
+                .filter(Objects::nonNull)
+                .filter(distinctEventId())
+                .filter(event -> !processedEventFilter.isDuplicate(event.getEventId()))
+                .toList();
+        log.debug("📩 결제 이벤트 배치 수신: {}건 (중복 제외 {}건)", events.size(), records.size() - events.size());
+        if (events.isEmpty()) {
+            ack.acknowledge();
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Long> orderIds = events.stream().map(OrderEvent::getOrderId).toList();
+        inOrder(orderIds, () -> processBatch(events, batchStart)).whenComplete((done, error) -> {
+            sample.stop(handlerTimer("batch", "batch"));
+            if (error != null) {
+                // 건별 처리와 같음: 종료 중일 때만 → 재시작 후 다시 전달
+                log.error("🚨 결제 배치 처리 중단 → ack 하지 않음: {}건, {}",
+                        events.size(), error.getMessage(), error);
+                return;
+            }
+            ack.acknowledge();
+        });
+    }
+
+    /** 배치 처리: PG 호출 → 결과가 다 모이면 (콜백 스레드) 한 트랜잭션으로 반영 */
+    private CompletableFuture<Void> processBatch(List<OrderEvent> events, long batchStart) {
+        return callGateway(events)
+                .thenComposeAsync(outcomes -> completeBatch(events, outcomes, batchStart), gatewayClient.executor());
+    }
+
+    /** 배치의 PG 결과를 한 트랜잭션으로 반영 → 응답 일괄 발행 */
+    private CompletableFuture<Void> completeBatch(List<OrderEvent> events, Map<OrderEvent, Outcome> outcomes, long batchStart) {
+        List<OrderEvent> responses;
+        long txStart = sagaTracer.start();
+        try {
+            responses = transactionTemplate.execute(status -> applyBatch(events, outcomes));
+        } catch (RuntimeException e) {
+            // 배치가 통째로 실패하면 한 건씩 (순서대로, 건마다 재시도하며) 다시 처리해서 문제 이벤트만 격리
+            log.error("❗ 결제 배치 처리 실패, 건별 처리로 전환: {}", e.getMessage(), e);
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (OrderEvent event : events) {
+                chain = chain.thenCompose(ignored ->
+                        persist("orderId=" + event.getOrderId(), () -> handleOnce(event, outcomes.get(event))));
+            }
+            return chain;
+        }
+
+        for (OrderEvent event : events) {
+            sagaTracer.record(event.getOrderId(), Step.DB_WRITE, event.getEventType(), txStart);
+        }
+
+        // 커밋 후 응답 일괄 발행 (많으면 BULK 프로듀서로)
+        producer.beginBatch(responses.size());
+        for (OrderEvent response : responses) {
+            send(response);
+        }
+        producer.flush();
+        for (OrderEvent event : events) {
+            sagaTracer.record(event.getOrderId(), Step.RECEIVE, event.getEventType(), batchStart);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 배치 적용 (한 트랜잭션)
+     * 결제 요청은 Payment 를 모아서 saveAll → 커밋 시 JDBC 배치 INSERT (거절 / 결과 불명도 상태와 함께 남긴다)
+     * 롤백은 같은 배치에서 만든 결제면 메모리에서, 아니면 한 번의 IN 조회로 찾아서 처리
+     * (같은 배치의 결제 → 롤백이면 환불은 결제 응답을 받은 뒤에 걸렸으므로 ROLLED_BACK 이 맞다)
+     */
+    private List<OrderEvent> applyBatch(List<OrderEvent> received, Map<OrderEvent, Outcome> outcomes) {
+        // 처리 기록을 먼저 남기고, 다른 컨슈머가 먼저 기록한 이벤트는 뺀다
+        Set<UUID> fresh = processedEventFilter.markProcessed(
+                received.stream().map(OrderEvent::getEventId).toList());
+        List<OrderEvent> events = received.stream()
+                .filter(event -> event.getEventId() == null || fresh.contains(event.getEventId()))
+                .toList();
+
+        Map<Long, Payment> created = new LinkedHashMap<>();
+        List<OrderEvent> rollbacks = new ArrayList<>();
+        List<OrderEvent> responses = new ArrayList<>(events.size());
+
+        for (OrderEvent event : events) {
             switch (event.getEventType()) {
                 case OrderEvent.PAYMENT_REQUEST:
-                    processPayment(event);
+                    if (created.containsKey(event.getOrderId())) {
+                        break;
+                    }
+                    Outcome outcome = outcomes.get(event);
+                    created.put(event.getOrderId(), Payment.builder()
+                            .orderId(event.getOrderId())
+                            .amount(event.getPrice() * event.getQuantity())
+                            .status(chargeStatus(event, outcome))
+                            .build());
+                    responses.add(toResponse(event, outcome.result().approved()
+                            ? OrderEvent.PAYMENT_SUCCESS
+                            : OrderEvent.PAYMENT_FAILED));
                     break;
 
                 case OrderEvent.PAYMENT_ROLLBACK:
-                    // ★ 보상 트랜잭션: 재고 실패로 인한 결제 취소
-                    rollbackPayment(event);
+                    rollbacks.add(event);
                     break;
 
                 default:
                     log.warn("알 수 없는 이벤트: {}", event.getEventType());
             }
-        } catch (Exception e) {
-            log.error("❗ 결제 이벤트 처리 실패: {}", e.getMessage(), e);
         }
-    }
 
-    /**
-     * 결제 처리
-     * 실습을 위해 금액이 100만원 초과면 실패하도록 설정
-     */
-    @Transactional
-    public void processPayment(OrderEvent event) {
-        try {
-            // 결제 실패 시뮬레이션: 100만원 초과 시 실패
-            if (event.getPrice() * event.getQuantity() > 1_000_000) {
-                log.info("💸 결제 실패 (금액 초과): orderId={}, 총액={}",
-                        event.getOrderId(), event.getPrice() * event.getQuantity());
-                sendResponse(event, OrderEvent.PAYMENT_FAILED);
-                return;
+        if (!rollbacks.isEmpty()) {
+            Map<Long, Payment> existing = new LinkedHashMap<>();
+            List<Long> toLoad = rollbacks.stream()
+                    .map(OrderEvent::getOrderId)
+                    .filter(orderId -> !created.containsKey(orderId))
+                    .toList();
+            if (!toLoad.isEmpty()) {
+                for (Payment payment : paymentRepository.findAllByOrderIdIn(toLoad)) {
+                    existing.put(payment.getOrderId(), payment);
+                }
+            }
+            for (OrderEvent event : rollbacks) {
+                Payment payment = created.containsKey(event.getOrderId())
+                        ? created.get(event.getOrderId())
+                        : existing.get(event.getOrderId());
+                if (payment != null) {
+                    payment.setStatus(refundStatus(event, outcomes.get(event).result()));
+                }
+                responses.add(toResponse(event, OrderEvent.PAYMENT_ROLLBACK_DONE));
             }
+        }
 
-            // 결제 성공
-            Payment payment = Payment.builder()
-                    .orderId(event.getOrderId())
-                    .amount(event.getPrice() * event.getQuantity())
-                    .status(PaymentStatus.COMPLETED)
-                    .build();
-            paymentRepository.save(payment);
+        paymentRepository.saveAll(created.values());
+        log.debug("💳 결제 배치 처리: 신규 결제={}건, 롤백={}건", created.size(), rollbacks.size());
+        return responses;
+    }
 
-            log.info("✅ 결제 성공: orderId={}, 금액={}", event.getOrderId(), payment.getAmount());
-            sendResponse(event, OrderEvent.PAYMENT_SUCCESS);
+    /**
+     * 결제 처리 (PG 승인 결과 반영)
+     * 실습용 가짜 PG 는 총액이 100만원 초과면 거절한다 (payment.gateway.stub.decline-amount)
+     * DB 오류는 여기서 삼키지 않는다 → 트랜잭션 롤백 + 재시도 (승인된 결제를 실패로 응답하지 않음)
+     */
+    private void processPayment(OrderEvent event, Outcome outcome) {
+        Payment payment = Payment.builder()
+                .orderId(event.getOrderId())
+                .amount(event.getPrice() * event.getQuantity())
+                .status(chargeStatus(event, outcome))
+                .build();
+        paymentRepository.save(payment);
 
-        } catch (Exception e) {
-            log.error("❗ 결제 처리 중 오류: {}", e.getMessage());
+        if (!outcome.result().approved()) {
+            log.debug("💸 결제 실패 ({}): orderId={}, 총액={}",
+                    outcome.result().reason(), event.getOrderId(), payment.getAmount());
             sendResponse(event, OrderEvent.PAYMENT_FAILED);
+            return;
         }
+        log.debug("✅ 결제 성공: orderId={}, 금액={}", event.getOrderId(), payment.getAmount());
+        sendResponse(event, OrderEvent.PAYMENT_SUCCESS);
     }
 
     /**
      * ★ 보상 트랜잭션 (Saga의 핵심!)
      *
-     * 재고 차감이 실패했기 때문에, 이미 완료된 결제를 취소한다.
-     * 실제로는 PG사 환불 API 호출 등이 들어갈 자리.
+     * 재고 차감이 실패했기 때문에, 이미 완료된 결제를 취소한다. (PG 환불은 이미 끝났고 그 결과를 반영)
+     * PG 가 환불을 거절해도 Saga 는 멈추지 않는다 → REFUND_FAILED 로 남기고 운영자가 확인
+     * (응답이 없거나 로컬에서 거절된 환불은 여기까지 오지 않는다 → PG 가 답할 때까지 다시 건다)
      */
-    @Transactional
-    public void rollbackPayment(OrderEvent event) {
-        paymentRepository.findByOrderId(event.getOrderId()).ifPresent(payment -> {
-            payment.setStatus(PaymentStatus.ROLLED_BACK);
+    private void rollbackPayment(OrderEvent event, GatewayResult result) {
+        paymentRepository.findByOrderId(event.getOrderId()).ifPresentOrElse(payment -> {
+            payment.setStatus(refundStatus(event, result));
             paymentRepository.save(payment);
-            log.info("🔄 결제 롤백 완료: orderId={}, 금액={}", event.getOrderId(), payment.getAmount());
-        });
+            log.debug("🔄 결제 롤백 완료: orderId={}, 금액={}", event.getOrderId(), payment.getAmount());
+        }, () -> log.debug("🔄 결제 기록 없는 롤백 (PG 환불만 요청): orderId={}", event.getOrderId()));
 
         // 롤백 완료 알림
         sendResponse(event, OrderEvent.PAYMENT_ROLLBACK_DONE);
     }
 
+    /** 결제 요청의 최종 상태: 승인 → COMPLETED, 거절 → DECLINED, 결과 불명 → 바로 건 취소 결과 */
+    private PaymentStatus chargeStatus(OrderEvent event, Outcome outcome) {
+        if (outcome.result().approved()) {
+            return PaymentStatus.COMPLETED;
+        }
+        if (outcome.voided() == null) {
+            return PaymentStatus.DECLINED;
+        }
+        return refundStatus(event, outcome.voided());
+    }
+
+    private PaymentStatus refundStatus(OrderEvent event, GatewayResult result) {
+        if (result.approved()) {
+            return PaymentStatus.ROLLED_BACK;
+        }
+        log.error("🚨 PG 가 환불을 거절 ({}), 운영자 확인 필요: orderId={}", result.reason(), event.getOrderId());
+        return PaymentStatus.REFUND_FAILED;
+    }
+
+    /** saga.handler{type, mode}: 수신 → PG 결과 반영까지. 건별 모드는 이벤트 타입별, 배치 모드는 poll 한 번(한 트랜잭션) 단위 */
+    private Timer handlerTimer(String type, String mode) {
+        return handlerTimers.computeIfAbsent(type + ':' + mode, key -> Timer.builder("saga.handler")
+                .description("Saga 이벤트 처리 시간")
+                .tag("type", type)
+                .tag("mode", mode)
+                .register(meterRegistry));
+    }
+
+    /** 같은 poll 안에 같은 eventId 가 두 번 들어온 경우 첫 번째만 남긴다 */
+    private static Predicate<OrderEvent> distinctEventId() {
+        Set<UUID> seen = new HashSet<>();
+        return event -> event.getEventId() == null || seen.add(event.getEventId());
+    }
+
     private void sendResponse(OrderEvent event, String eventType) {
+        send(toResponse(event, eventType));
+    }
+
+    private OrderEvent toResponse(OrderEvent event, String eventType) {
+        return OrderEvent.builder()
+                .orderId(event.getOrderId())
+                .productName(event.getProductName())
+                .quantity(event.getQuantity())
+                .price(event.getPrice())
+                .eventType(eventType)
+                .eventId(OrderEventCodec.newEventId())
+                .build();
+    }
+
+    private void send(OrderEvent response) {
         try {
-            OrderEvent response = OrderEvent.builder()
-                    .orderId(event.getOrderId())
-                    .productName(event.getProductName())
-                    .quantity(event.getQuantity())
-                    .price(event.getPrice())
-                    .eventType(eventType)
-                    .build();
-            kafkaTemplate.send("order-response-topic",
-                    event.getOrderId().toString(),
-                    objectMapper.writeValueAsString(response));
+            long start = sagaTracer.start();
+            producer.send("order-response-topic", response.getOrderId().toString(), response);
+            sagaTracer.record(response.getOrderId(), Step.PUBLISH, response.getEventType(), start);
         } catch (Exception e) {
             log.error("❗ 응답 발행 실패: {}", e.getMessage());
         }
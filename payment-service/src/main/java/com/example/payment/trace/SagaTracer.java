@@ -0,0 +1,111 @@
+package com.example.payment.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Saga 단계 추적
+ *
+ * 단계마다 두 군데에 남긴다.
+ * - JFR SagaStepEvent : 녹화 중일 때만 (jcmd JFR.start), 오프라인 분석용
+ * - 메모리 링 버퍼    : 항상, 최근 capacity 건만 (/actuator/sagatrace/{orderId})
+ *
+ * 링 버퍼는 락 없이 동작한다. 쓰는 쪽은 시퀀스를 하나 받아 그 칸에 불변 레코드를 덮어쓰기만 하고,
+ * 읽는 쪽은 전체를 훑어서 주문 ID 가 같은 것만 시퀀스 순으로 모은다. (조회는 드물고 쓰기는 매 단계)
+ * 오래된 항목은 덮어써지므로 메모리는 capacity 로 고정.
+ */
+@Component
+public class SagaTracer {
+
+    public enum Step {
+        /** 요청 이벤트 수신 → 처리 완료 */
+        RECEIVE,
+        /** 결제 변경 트랜잭션 (처리 기록 포함) */
+        DB_WRITE,
+        /** 응답 발행 (send 호출, ack 는 기다리지 않음) */
+        PUBLISH
+    }
+
+    /** 링 버퍼 한 칸 */
+    private record Entry(long seq, long orderId, Step step, String detail, long epochMillis, long elapsedNanos,
+                         String thread) {
+    }
+
+    /** 조회 응답 */
+    public record Trace(long seq, Instant at, Step step, String detail, double elapsedMs, String thread) {
+    }
+
+    private static final String SERVICE = "payment";
+
+    /** false 면 링 버퍼에는 안 쌓는다 (JFR 은 녹화 여부로 따로 켜고 끔) */
+    @Value("${saga.trace.enabled:true}")
+    private boolean enabled;
+
+    /** 링 버퍼 크기 (2의 거듭제곱으로 올림) */
+    @Value("${saga.trace.capacity:65536}")
+    private int capacity;
+
+    private AtomicReferenceArray<Entry> ring;
+    private int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /** startNanos(start() 값)부터 지금까지를 한 단계로 기록 */
+    public void record(Long orderId, Step step, String detail, long startNanos) {
+        if (orderId == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+
+        SagaStepEvent event = new SagaStepEvent();
+        if (event.shouldCommit()) {
+            event.service = SERVICE;
+            event.orderId = orderId;
+            event.step = step.name();
+            event.detail = detail;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+
+        if (enabled) {
+            long seq = sequence.getAndIncrement();
+            ring.setRelease((int) seq & mask, new Entry(seq, orderId, step, detail, System.currentTimeMillis(),
+                    elapsed, Thread.currentThread().getName()));
+        }
+    }
+
+    /** 링 버퍼에 남아 있는 이 주문의 단계들 (오래된 순) */
+    public List<Trace> find(long orderId) {
+        List<Entry> found = new ArrayList<>();
+        for (int i = 0; i < ring.length(); i++) {
+            Entry entry = ring.getAcquire(i);
+            if (entry != null && entry.orderId() == orderId) {
+                found.add(entry);
+            }
+        }
+        found.sort(Comparator.comparingLong(Entry::seq));
+        return found.stream()
+                .map(entry -> new Trace(entry.seq(), Instant.ofEpochMilli(entry.epochMillis()), entry.step(),
+                        entry.detail(), entry.elapsedNanos() / 1_000_000.0, entry.thread()))
+                .toList();
+    }
+}